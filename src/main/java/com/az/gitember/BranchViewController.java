@@ -1,39 +1,52 @@
 package com.az.gitember;
 
 import com.az.gitember.misc.Const;
-import com.az.gitember.misc.GitemberUtil;
 import com.az.gitember.misc.ScmBranch;
 import com.az.gitember.misc.ScmItem;
+import com.az.gitember.misc.ScmRevisionInformation;
+import com.az.gitember.scm.impl.git.CommitHistory;
+import com.az.gitember.scm.impl.git.GitRepositoryService;
+import com.az.gitember.scm.impl.git.CommitSearch;
+import com.az.gitember.scm.impl.git.CommitSearchResult;
 import com.az.gitember.ui.AutoCompleteTextField;
+import com.az.gitember.ui.HistoryRowModel;
+import com.az.gitember.ui.LaneGeometry;
 import com.az.gitember.ui.PlotCommitRenderer;
-import com.sun.javafx.binding.StringConstant;
+import com.az.gitember.ui.PlotLaneTableCell;
+import com.az.gitember.ui.RowIndexList;
+import com.az.gitember.ui.RowTextTableCell;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Parent;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
-import org.eclipse.jgit.lib.PersonIdent;
-import org.eclipse.jgit.revplot.PlotCommit;
-import org.eclipse.jgit.revplot.PlotCommitList;
-import org.eclipse.jgit.revplot.PlotLane;
+import javafx.util.Duration;
+import org.eclipse.jgit.lib.ObjectId;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Created by Igor_Azarny on 03 - Dec - 2016
@@ -44,17 +57,41 @@ public class BranchViewController implements Initializable {
 
     private static final int HEIGH = 30;
 
+    /**
+     * Amount of commits walked at once.
+     */
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * Next page is requested, when row closer than this to the end of loaded history is shown.
+     */
+    private static final int PAGE_PREFETCH_ROWS = 100;
+
+    private static final int LANE_CACHE_SIZE = 1000;
+
+    private static final int DETAIL_CACHE_SIZE = 32;
+
+    /**
+     * Details of selected commit are loaded, when selection is not changed during this time.
+     */
+    private static final Duration DETAIL_DELAY = Duration.millis(150);
+
+    /**
+     * Amount of rows, which are rendered together with the first page.
+     */
+    private static final int FIRST_RENDERED_ROWS = 128;
+
     @FXML
-    private TableColumn<PlotCommit, Canvas> laneTableColumn;
+    private TableColumn<Integer, Object> laneTableColumn;
 
     @FXML
-    private TableColumn<PlotCommit, String> dateTableColumn;
+    private TableColumn<Integer, String> dateTableColumn;
 
     @FXML
-    private TableColumn<PlotCommit, String> messageTableColumn;
+    private TableColumn<Integer, String> messageTableColumn;
 
     @FXML
-    private TableColumn<PlotCommit, String> authorTableColumn;
+    private TableColumn<Integer, String> authorTableColumn;
 
     @FXML
     private TableView commitsTableView;
@@ -68,126 +105,194 @@ public class BranchViewController implements Initializable {
 
     private Label searchLabel;
 
+    private Label searchResultLabel;
+
+    private Button searchPrevBtn;
+
+    private Button searchNextBtn;
+
     private PlotCommitRenderer plotCommitRenderer = new PlotCommitRenderer();
 
+    /**
+     * Lanes of recently shown rows. Lanes of row do not change, when next page is loaded.
+     */
+    private final Map<Integer, LaneGeometry> laneGeometryCache = new LinkedHashMap<Integer, LaneGeometry>(
+            LANE_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LaneGeometry> eldest) {
+            return size() > LANE_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Changed, when search text changed and rows must be restyled.
+     */
+    private final IntegerProperty searchChanged = new SimpleIntegerProperty();
+
+    /**
+     * Changed, when rows were rendered in background and cells must take text again.
+     */
+    private final IntegerProperty rowsRendered = new SimpleIntegerProperty();
+
     private String treeName;
 
     private int plotWidth = 5 * HEIGH;
 
-    private PlotCommitList<PlotLane> plotCommits;
+    private CommitHistory commitHistory;
+
+    private HistoryRowModel rowModel;
+
+    /**
+     * History, which is opened in background and not shown yet, or null.
+     */
+    private HistoryOpening historyOpening;
+
+    private CommitViewController commitViewController;
+
+    /**
+     * Details of recently selected and neighbour rows.
+     */
+    private final Map<Integer, ScmRevisionInformation> detailCache = new LinkedHashMap<Integer, ScmRevisionInformation>(
+            DETAIL_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ScmRevisionInformation> eldest) {
+            return size() > DETAIL_CACHE_SIZE;
+        }
+    };
+
+    private final PauseTransition detailPause = new PauseTransition(DETAIL_DELAY);
+
+    /**
+     * Changed on each selection, so background loading of previous selection stops.
+     */
+    private final AtomicInteger detailGeneration = new AtomicInteger();
+
+    private final ExecutorService detailExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread th = new Thread(r, "commit-details");
+        th.setDaemon(true);
+        return th;
+    });
+
+    private final RowIndexList rows = new RowIndexList();
+
+    private boolean pageLoading = false;
+
+    private CommitSearch commitSearch;
+
+    /**
+     * Last result of search by current search text, null if search text is too short.
+     */
+    private CommitSearchResult searchResult;
 
 
     @Override
     @SuppressWarnings("unchecked")
     public void initialize(URL location, ResourceBundle resources) {
         commitsTableView.setFixedCellSize(HEIGH);
+        commitsTableView.setItems(rows);
         commitsTableView
                 .getSelectionModel()
                 .selectedItemProperty()
-                .addListener(new ChangeListener<PlotCommit>() {
+                .addListener(new ChangeListener<Integer>() {
 
                     @Override
-                    public void changed(final ObservableValue<? extends PlotCommit> observable,
-                                        final PlotCommit oldValue,
-                                        final PlotCommit newValue) {
-
-                        Parent commitView = CommitViewController.openCommitViewWindow(
-                                GitemberApp.getRepositoryService().adapt(newValue, null),
-                                -1, treeName, null, null, null);
-                        hostCommitViewPanel.getChildren().removeAll(hostCommitViewPanel.getChildren());
-                        hostCommitViewPanel.getChildren().add(commitView);
+                    public void changed(final ObservableValue<? extends Integer> observable,
+                                        final Integer oldValue,
+                                        final Integer newValue) {
+
+                        if (newValue == null) {
+                            return;
+                        }
+                        final int generation = detailGeneration.incrementAndGet();
+                        final ScmRevisionInformation cached = getCachedDetails(newValue);
+                        if (cached != null) {
+                            detailPause.stop();
+                            showDetails(cached);
+                            loadDetails(newValue, generation, false);
+                        } else {
+                            detailPause.setOnFinished(e -> loadDetails(newValue, generation, true));
+                            detailPause.playFromStart();
+                        }
                     }
 
                 });
 
         commitsTableView.setRowFactory(
                 tr -> {
-                    return new TableRow<PlotCommit>() {
-
-                        private String calculateStyle(final PlotCommit scmItem) {
-                            String searchText = BranchViewController.this.searchText.getText();
-                            if (scmItem != null && searchText != null && searchText.length() > Const.SEARCH_LIMIT_CHAR) {
-                                searchText = searchText.toLowerCase();
-
-                                if (scmItem.getShortMessage().toLowerCase().contains(searchText)
-                                        || scmItem.getFullMessage().toLowerCase().contains(searchText)
-                                        || scmItem.getName().toLowerCase().contains(searchText)
-                                        || prersonIndentContains(scmItem.getCommitterIdent(), searchText)
-                                        || prersonIndentContains(scmItem.getAuthorIdent(), searchText)
-                                        || GitemberApp.getRepositoryService().getScmItems(scmItem, null)
-                                        .stream()
-                                        .map(s -> s.getAttribute().getName())
-                                        .collect(Collectors.joining(","))
-                                        .toLowerCase()
-                                        .contains(searchText)) {
-
-                                    return "-fx-font-weight: bold; " +
-                                            "-fx-background-color: linear-gradient(#9fbed6 0%, #d0fad0 100%);";
-
-                                }
+                    return new TableRow<Integer>() {
+
+                        /**
+                         * Held by row, search property keeps only weak reference, so row can be collected.
+                         */
+                        private final InvalidationListener searchListener = o -> setStyle(calculateStyle());
+
+                        {
+                            searchChanged.addListener(new WeakInvalidationListener(searchListener));
+                        }
+
+                        private String calculateStyle() {
+                            if (!isEmpty() && searchResult != null && searchResult.isMatch(getIndex())) {
+                                return "-fx-font-weight: bold; " +
+                                        "-fx-background-color: linear-gradient(#9fbed6 0%, #d0fad0 100%);";
                             }
                             return "";
                         }
 
                         @Override
-                        protected void updateItem(PlotCommit item, boolean empty) {
+                        protected void updateItem(Integer item, boolean empty) {
                             super.updateItem(item, empty);
-                            setStyle(calculateStyle(item));
+                            setStyle(calculateStyle());
+                            if (!empty && getIndex() > commitsTableView.getItems().size() - PAGE_PREFETCH_ROWS) {
+                                loadNextPage();
+                            }
                         }
                     };
                 }
         );
 
-        laneTableColumn.setCellValueFactory(
-                c -> {
-                    return new ObservableValue<Canvas>() {
-                        @Override
-                        public Canvas getValue() {
-                            Canvas canvas = new Canvas(plotWidth, HEIGH);
-                            GraphicsContext gc = canvas.getGraphicsContext2D();
-                            plotCommitRenderer.render(gc, c.getValue(), HEIGH);
-                            return canvas;
-                        }
-
-                        @Override
-                        public void addListener(InvalidationListener listener) {
-                        }
-
-                        @Override
-                        public void removeListener(InvalidationListener listener) {
-                        }
-
-                        @Override
-                        public void addListener(ChangeListener<? super Canvas> listener) {
-                        }
-
-                        @Override
-                        public void removeListener(ChangeListener<? super Canvas> listener) {
-                        }
-
-                    };
-                }
+        laneTableColumn.setCellFactory(
+                c -> new PlotLaneTableCell<>(this::getLaneGeometry, HEIGH)
         );
         laneTableColumn.setSortable(false);
 
-        authorTableColumn.setCellValueFactory(
-                c -> StringConstant.valueOf(c.getValue().getCommitterIdent().getName())
+        authorTableColumn.setCellFactory(
+                c -> new RowTextTableCell<>(row -> rowModel.getCommitter(row), rowsRendered)
         );
         authorTableColumn.setSortable(false);
 
-        messageTableColumn.setCellValueFactory(
-                c -> StringConstant.valueOf(c.getValue().getShortMessage())
+        messageTableColumn.setCellFactory(
+                c -> new RowTextTableCell<>(row -> rowModel.getMessage(row), rowsRendered)
         );
         messageTableColumn.setSortable(false);
 
 
-        dateTableColumn.setCellValueFactory(
-                c -> StringConstant.valueOf(
-                        GitemberUtil.formatDate(GitemberUtil.intToDate(c.getValue().getCommitTime()))
-                )
+        dateTableColumn.setCellFactory(
+                c -> new RowTextTableCell<>(row -> rowModel.getDate(row), rowsRendered)
         );
         dateTableColumn.setSortable(false);
 
+        commitsTableView.sceneProperty().addListener(
+                (observable, oldValue, newValue) -> {
+                    if (newValue == null && historyOpening != null) {
+                        historyOpening.discard();
+                        historyOpening = null;
+                    }
+                    if (newValue == null && commitHistory != null) {
+                        commitHistory.close();
+                    }
+                    if (newValue == null && rowModel != null) {
+                        rowModel.close();
+                    }
+                    if (newValue == null) {
+                        detailPause.stop();
+                        detailExecutor.shutdownNow();
+                    }
+                    if (newValue == null && commitSearch != null) {
+                        commitSearch.close();
+                    }
+                }
+        );
+
         spacerPane = new Pane();
         HBox.setHgrow(spacerPane, Priority.ALWAYS);
         spacerPane.setId(Const.MERGED);
@@ -201,28 +306,262 @@ public class BranchViewController implements Initializable {
         searchText.getEntries().addAll(GitemberApp.entries);
         searchText.textProperty().addListener(
                 (observable, oldValue, newValue) -> {
-                    commitsTableView.refresh();
+                    search();
                     if (oldValue != null && newValue != null && newValue.length() > oldValue.length() && newValue.contains(oldValue)) {
                         GitemberApp.entries.remove(oldValue);
                         GitemberApp.entries.add(newValue);
                     }
                 }
         );
+
+        searchResultLabel = new Label();
+        searchResultLabel.setId(Const.MERGED);
+
+        searchPrevBtn = new Button("Prev");
+        searchPrevBtn.setOnAction(e -> selectMatch(false));
+        searchPrevBtn.setId(Const.MERGED);
+
+        searchNextBtn = new Button("Next");
+        searchNextBtn.setOnAction(e -> selectMatch(true));
+        searchNextBtn.setId(Const.MERGED);
     }
 
-    private boolean prersonIndentContains(PersonIdent prersonIndent, String searchString) {
-        return prersonIndent != null
-                && (prersonIndent.getEmailAddress() != null
-                && prersonIndent.getEmailAddress().toLowerCase().contains(searchString.toLowerCase()));
+    private String getSearchQuery() {
+        final String text = searchText.getText();
+        if (text != null && text.length() > Const.SEARCH_LIMIT_CHAR) {
+            return text.toLowerCase();
+        }
+        return null;
+    }
 
+    /**
+     * Search loaded commits by current search text in background. Search in progress is cancelled,
+     * if text was changed. The same search is only extended to newly loaded commits.
+     */
+    private void search() {
+        final String query = getSearchQuery();
+        if (query == null || commitHistory == null) {
+            if (commitSearch != null) {
+                commitSearch.cancel();
+            }
+            applySearchResult(null);
+            return;
+        }
+        if (commitSearch == null) {
+            commitSearch = GitemberApp.getRepositoryService().createCommitSearch();
+        }
+        commitSearch.search(
+                commitHistory.getIds().subList(0, rows.size()),
+                query,
+                rez -> Platform.runLater(() -> {
+                    if (rez.getQuery().equals(getSearchQuery())) {
+                        applySearchResult(rez);
+                    }
+                })
+        );
+    }
+
+    private void applySearchResult(final CommitSearchResult rez) {
+        searchResult = rez;
+        if (rez == null) {
+            searchResultLabel.setText("");
+        } else {
+            searchResultLabel.setText(rez.getMatchCount() + (rez.isComplete() ? "" : "+") + " found");
+        }
+        searchChanged.set(searchChanged.get() + 1);
+    }
+
+    /**
+     * Select next or previous commit, which matches search text.
+     */
+    private void selectMatch(final boolean forward) {
+        if (searchResult == null) {
+            return;
+        }
+        final int current = commitsTableView.getSelectionModel().getSelectedIndex();
+        final int row = forward ? searchResult.next(current) : searchResult.previous(current);
+        if (row >= 0) {
+            commitsTableView.getSelectionModel().clearAndSelect(row);
+            commitsTableView.scrollTo(row);
+        }
+    }
+
+    private ScmRevisionInformation getCachedDetails(final int row) {
+        synchronized (detailCache) {
+            return detailCache.get(row);
+        }
+    }
+
+    /**
+     * Load details of selected commit in background and show them, if selection was not changed meanwhile.
+     * Details of neighbour commits are loaded after that, so keyboard navigation finds them in cache.
+     */
+    private void loadDetails(final int row, final int generation, final boolean show) {
+        final CommitHistory history = commitHistory;
+        detailExecutor.execute(() -> {
+            for (int r : new int[]{row, row + 1, row - 1}) {
+                if (detailGeneration.get() != generation) {
+                    return;
+                }
+                if (r < 0 || r >= history.size()) {
+                    continue;
+                }
+                final ScmRevisionInformation info = readDetails(history, r);
+                if (show && r == row && info != null) {
+                    Platform.runLater(() -> {
+                        if (detailGeneration.get() == generation) {
+                            showDetails(info);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * @return commit details with evaluated affected items or null if commit can not be read
+     */
+    private ScmRevisionInformation readDetails(final CommitHistory history, final int row) {
+        ScmRevisionInformation info = getCachedDetails(row);
+        if (info == null) {
+            try {
+                info = GitemberApp.getRepositoryService().adapt(history.parseCommit(row), null);
+                info.setRef(history.getRefNames(row));
+                info.getAffectedItems();
+                synchronized (detailCache) {
+                    detailCache.put(row, info);
+                }
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot read commit " + history.getId(row).getName(), e);
+            }
+        }
+        return info;
+    }
+
+    private void showDetails(final ScmRevisionInformation info) {
+        if (commitViewController == null) {
+            commitViewController = CommitViewController.createCommitView(treeName);
+            if (commitViewController == null) {
+                return;
+            }
+            hostCommitViewPanel.getChildren().setAll(commitViewController.getView());
+        }
+        commitViewController.showCommit(info);
+    }
+
+    private LaneGeometry getLaneGeometry(final int index) {
+        if (index >= rows.size()) {
+            return null;
+        }
+        LaneGeometry geometry = laneGeometryCache.get(index);
+        if (geometry == null) {
+            synchronized (commitHistory) {
+                geometry = plotCommitRenderer.layout(commitHistory.getHistoryGraph(), index, HEIGH);
+            }
+            laneGeometryCache.put(index, geometry);
+        }
+        return geometry;
     }
 
 
     public void open(final boolean all) throws Exception {
-        this.plotCommits = GitemberApp.getRepositoryService().getCommitsByTree(this.treeName, all);
-        commitsTableView.setItems(FXCollections.observableArrayList(plotCommits));
-        plotWidth = calculateLineColumnWidth(plotCommits);
-        laneTableColumn.setPrefWidth(plotWidth);
+        open(all, true);
+    }
+
+    /**
+     * Open history in background. Shown history stays in table until new one is ready, then it is swapped
+     * and selected commit is selected again, if it is loaded in new history.
+     *
+     * @param all         to visualize all refs
+     * @param allowRecent true to show the newest commits at once, if commit graph cache is not built yet
+     */
+    private void open(final boolean all, final boolean allowRecent) {
+        if (historyOpening != null) {
+            historyOpening.discard();
+        }
+        final HistoryOpening opening = new HistoryOpening(all, allowRecent, rows.size());
+        historyOpening = opening;
+        pageLoading = true;
+        opening.setOnSucceeded(z -> {
+            if (historyOpening != opening) {
+                return;
+            }
+            historyOpening = null;
+            if (commitsTableView.getScene() == null) {
+                opening.discard(); // view was closed before first page was loaded
+                return;
+            }
+            showHistory(opening);
+            if (opening.isRecent()) {
+                updateCommitGraph(all);
+            }
+        });
+        opening.setOnFailed(z -> {
+            if (historyOpening == opening) {
+                historyOpening = null;
+                pageLoading = false;
+            }
+            log.log(Level.SEVERE, "Cannot load history of " + treeName, z.getSource().getException());
+        });
+        final Thread th = new Thread(opening);
+        th.setDaemon(true);
+        th.start();
+    }
+
+    /**
+     * Replace shown history with opened one.
+     */
+    private void showHistory(final HistoryOpening opening) {
+        final int selected = commitsTableView.getSelectionModel().getSelectedIndex();
+        final ObjectId selectedId = selected < 0 || commitHistory == null ? null : commitHistory.getId(selected);
+        if (commitHistory != null) {
+            commitHistory.close();
+        }
+        if (rowModel != null) {
+            rowModel.close();
+        }
+        commitHistory = opening.getHistory();
+        rowModel = opening.getRowModel();
+        laneGeometryCache.clear();
+        detailGeneration.incrementAndGet();
+        synchronized (detailCache) {
+            detailCache.clear();
+        }
+        if (commitSearch != null) {
+            commitSearch.cancel();
+        }
+        plotWidth = 0;
+        rows.setSize(0);
+        showLoadedRows(opening.getValue());
+        if (selectedId != null) {
+            final int row = commitHistory.getIds().indexOf(selectedId);
+            if (row >= 0) {
+                commitsTableView.getSelectionModel().clearAndSelect(row);
+                commitsTableView.scrollTo(row);
+            }
+        }
+    }
+
+    /**
+     * Build commit graph cache in background and reopen history over it.
+     */
+    private void updateCommitGraph(final boolean all) {
+        final Task<Void> longTask = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                GitemberApp.getRepositoryService().updateCommitGraph(treeName);
+                return null;
+            }
+        };
+        longTask.setOnSucceeded(z -> {
+            if (commitsTableView.getScene() != null) {
+                open(all, false);
+            }
+        });
+        longTask.setOnFailed(z -> log.log(Level.WARNING, "Cannot build commit graph", z.getSource().getException()));
+        Thread th = new Thread(longTask);
+        th.setDaemon(true);
+        th.start();
     }
 
     public void open() throws Exception {
@@ -230,11 +569,145 @@ public class BranchViewController implements Initializable {
 
     }
 
+    /**
+     * Lay out next page of history in background, if it is not laid out yet.
+     */
+    private void loadNextPage() {
+        if (pageLoading || commitHistory == null || commitHistory.isComplete()) {
+            return;
+        }
+        pageLoading = true;
+        final CommitHistory history = commitHistory;
+        final Task<Integer> longTask = new Task<Integer>() {
+            @Override
+            protected Integer call() throws Exception {
+                return history.loadPage(PAGE_SIZE);
+            }
+        };
+        longTask.setOnSucceeded(z -> {
+            if (history == commitHistory && commitsTableView.getScene() != null) {
+                showLoadedRows(longTask.getValue());
+            }
+        });
+        longTask.setOnFailed(z -> {
+            if (history == commitHistory) {
+                pageLoading = false;
+            }
+            log.log(Level.SEVERE, "Cannot load history of " + treeName, z.getSource().getException());
+        });
+        Thread th = new Thread(longTask);
+        th.setDaemon(true);
+        th.start();
+    }
+
+    /**
+     * Show rows, which were laid out at the end of current history.
+     */
+    private void showLoadedRows(final int loaded) {
+        rows.setSize(rows.size() + loaded);
+        synchronized (commitHistory) {
+            plotWidth = Math.max(plotWidth, PlotCommitRenderer.getWidth(commitHistory.getHistoryGraph().getMaxLane()));
+        }
+        laneTableColumn.setPrefWidth(plotWidth);
+        pageLoading = false;
+        if (getSearchQuery() != null) {
+            search();
+        }
+    }
+
+    /**
+     * Opens history and lays out its first pages in background. Opened history and its row model are taken
+     * on FX thread, when task succeeded. They are closed, if opening is discarded before that.
+     */
+    private class HistoryOpening extends Task<Integer> {
+
+        private final boolean all;
+
+        private final boolean allowRecent;
+
+        private final int minRows;
+
+        private boolean recent;
 
-    private int calculateLineColumnWidth(PlotCommitList<PlotLane> plotCommits) {
-        return 36 + 12 * plotCommits.stream().mapToInt(p -> p.getLane().getPosition()).max().orElse(0);
+        private CommitHistory history;
+
+        private HistoryRowModel rowModel;
+
+        private boolean discarded = false;
+
+        /**
+         * @param all         to visualize all refs
+         * @param allowRecent true to open the newest commits only, if commit graph cache is not built yet
+         * @param minRows     amount of rows to lay out at least, so the same rows are shown after reopen
+         */
+        HistoryOpening(final boolean all, final boolean allowRecent, final int minRows) {
+            this.all = all;
+            this.allowRecent = allowRecent;
+            this.minRows = minRows;
+        }
+
+        @Override
+        protected Integer call() throws Exception {
+            final GitRepositoryService repositoryService = GitemberApp.getRepositoryService();
+            final boolean openRecent = allowRecent && !repositoryService.isCommitGraphCurrent(treeName);
+            final CommitHistory openedHistory = openRecent
+                    ? repositoryService.openRecentCommitHistory(treeName, all, PAGE_SIZE)
+                    : repositoryService.openCommitHistory(treeName, all);
+            final HistoryRowModel openedRowModel = new HistoryRowModel(
+                    openedHistory, () -> rowsRendered.set(rowsRendered.get() + 1));
+            int rez = 0;
+            boolean opened = false;
+            try {
+                int loaded;
+                do {
+                    loaded = openedHistory.loadPage(PAGE_SIZE);
+                    rez += loaded;
+                } while (loaded > 0 && rez < minRows && !isCancelled());
+                openedRowModel.render(0, FIRST_RENDERED_ROWS);
+                opened = true;
+            } finally {
+                synchronized (this) {
+                    if (discarded || !opened) {
+                        openedHistory.close();
+                        openedRowModel.close();
+                    } else {
+                        history = openedHistory;
+                        rowModel = openedRowModel;
+                        recent = openRecent;
+                    }
+                }
+            }
+            return rez;
+        }
+
+        /**
+         * Stop opening and close opened history, if it was not taken yet.
+         */
+        synchronized void discard() {
+            discarded = true;
+            cancel(true);
+            if (history != null) {
+                history.close();
+                rowModel.close();
+                history = null;
+                rowModel = null;
+            }
+        }
+
+        synchronized CommitHistory getHistory() {
+            return history;
+        }
+
+        synchronized HistoryRowModel getRowModel() {
+            return rowModel;
+        }
+
+        synchronized boolean isRecent() {
+            return recent;
+        }
     }
 
+
     static Parent openBranchHistory(final ScmBranch scmBranch,
                                     final ToolBar toolBar,
                                     final boolean all) {
@@ -248,6 +721,9 @@ public class BranchViewController implements Initializable {
                     toolBar.getItems().add(branchViewController.spacerPane);
                     toolBar.getItems().add(branchViewController.searchLabel);
                     toolBar.getItems().add(branchViewController.searchText);
+                    toolBar.getItems().add(branchViewController.searchResultLabel);
+                    toolBar.getItems().add(branchViewController.searchPrevBtn);
+                    toolBar.getItems().add(branchViewController.searchNextBtn);
                     branchViewController.open(all);
                     return branchView;
                 }
@@ -84,6 +84,7 @@ public class CommitViewController implements Initializable {
     private List<ScmItem> changedFiles;
     private AutoCompleteTextField searchText = null;
     private Label searchLabel = null;
+    private Parent view;
 
     public void showPlotCommit() {
         this.msgLbl.setText(scmRevisionInformation.getFullMessage());
@@ -108,7 +109,13 @@ public class CommitViewController implements Initializable {
         changedFilesListView.setItems(
                 FXCollections.observableArrayList(changedFiles)
         );
+    }
 
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        fileTableColumn.setCellValueFactory( c -> StringConstant.valueOf(c.getValue().getAttribute().getName()) );
+        fileTableColumn.setContextMenu(scmItemContextMenu);
+        actionTableColumn.setCellValueFactory(c -> new ActionCellValueFactory(c, null));
         changedFilesListView.setRowFactory(
                 tr -> {
                     return new TableRow<ScmItem>() {
@@ -137,13 +144,6 @@ public class CommitViewController implements Initializable {
         );
     }
 
-    @Override
-    public void initialize(URL location, ResourceBundle resources) {
-        fileTableColumn.setCellValueFactory( c -> StringConstant.valueOf(c.getValue().getAttribute().getName()) );
-        fileTableColumn.setContextMenu(scmItemContextMenu);
-        actionTableColumn.setCellValueFactory(c -> new ActionCellValueFactory(c, null));
-    }
-
 
     public void fillData(final String treeName, ScmRevisionInformation revInfo) throws Exception {
         this.treeName = treeName;
@@ -296,6 +296,43 @@ public class CommitViewController implements Initializable {
 
     }
 
+    /**
+     * Show other commit in the same view.
+     *
+     * @param revInfo commit to show, affected items should be already evaluated,
+     *                otherwise they are evaluated in the FX thread
+     */
+    public void showCommit(final ScmRevisionInformation revInfo) {
+        this.scmRevisionInformation = revInfo;
+        this.changedFiles = revInfo.getAffectedItems();
+        showPlotCommit();
+    }
+
+    public Parent getView() {
+        return view;
+    }
+
+    /**
+     * Load commit view, which can be reused for different commits, see {@link #showCommit(ScmRevisionInformation)}.
+     *
+     * @param treeName tree name
+     * @return controller of view or null if view can not be loaded
+     */
+    public static CommitViewController createCommitView(final String treeName) {
+        final FXMLLoader fxmlLoader = new FXMLLoader();
+        try (InputStream is = CommitViewController.class.getResource("/fxml/CommitViewPane.fxml").openStream()) {
+            final Parent commitView = fxmlLoader.load(is);
+            final CommitViewController commitViewController = fxmlLoader.getController();
+            commitViewController.view = commitView;
+            commitViewController.stashIndex = -1;
+            commitViewController.treeName = treeName;
+            return commitViewController;
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Cannot open window", e);
+        }
+        return null;
+    }
+
     public static Parent openCommitViewWindow(final ScmRevisionInformation info,
                                               final int stashIndex,
                                               final String treeName,
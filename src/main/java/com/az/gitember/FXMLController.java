@@ -74,6 +74,7 @@ public class FXMLController implements Initializable {
     public ProgressBar operationProgressBar;
     public Label operationName;
     public ToolBar progressBar;
+    public Button cancelOperationButton;
 
     public MenuItem openGitTerminalMenuItem;
     public MenuItem fetchMenuItem;
@@ -86,6 +87,8 @@ public class FXMLController implements Initializable {
     public MenuItem pushAllMenuItem;
     public MenuItem compressDataMenuItem;
     public MenuItem statReportMenuItem;
+    public MenuItem hotspotReportMenuItem;
+    public MenuItem activityReportMenuItem;
 
     public TreeItem workingCopyTreeItem;
     public TreeItem workSpaceTreeItem;
@@ -289,6 +292,8 @@ public class FXMLController implements Initializable {
                 (o, ov, nv) -> {
                     boolean disable = nv == null;
                     statReportMenuItem.setDisable(disable);
+                    hotspotReportMenuItem.setDisable(disable);
+                    activityReportMenuItem.setDisable(disable);
                     compressDataMenuItem.setDisable(disable);
                     settingsMenuItem.setDisable(disable);
                 }
@@ -889,6 +894,26 @@ public class FXMLController implements Initializable {
         GitemberApp.getGitemberService().createStatReport();
     }
 
+    /**
+     * Show files, which are changed most often.
+     *
+     * @param actionEvent event
+     */
+    @SuppressWarnings("unused")
+    public void createHotspotReport(ActionEvent actionEvent) {
+        GitemberApp.getGitemberService().createHotspotReport();
+    }
+
+    /**
+     * Show commits and changed files by week.
+     *
+     * @param actionEvent event
+     */
+    @SuppressWarnings("unused")
+    public void createActivityReport(ActionEvent actionEvent) {
+        GitemberApp.getGitemberService().createActivityReport();
+    }
+
 
     //---------------------------------------------------------------------------------------------------------------//
     //---------------------------------------------------------------------------------------------------------------//
@@ -125,6 +125,7 @@ public class GitemberApp extends Application {
             gitemberService.setProgressBar(controller.progressBar);
             gitemberService.setOperationProgressBar(controller.operationProgressBar);
             gitemberService.setOperationName(controller.operationName);
+            gitemberService.setCancelOperationButton(controller.cancelOperationButton);
             applySettings(getSettingsService().getGitemberSettings());
 
 
@@ -153,7 +154,7 @@ public class GitemberApp extends Application {
                 public void changed(ObservableValue<? extends Boolean> ov, Boolean onHidden, Boolean onShown)       {
 
                     if(onShown  && (workingCopyController instanceof  WorkingCopyController) ) {
-                        ((WorkingCopyController) workingCopyController).refreshBtnHandler(null);
+                        ((WorkingCopyController) workingCopyController).refreshOnFocus();
                     }
 
                 }
@@ -222,6 +223,9 @@ public class GitemberApp extends Application {
     }
 
     public static void setWorkingCopyController(WorkingCopyController workingCopyController) {
+        if (GitemberApp.workingCopyController != null) {
+            GitemberApp.workingCopyController.close();
+        }
         GitemberApp.workingCopyController = workingCopyController;
     }
 
@@ -2,10 +2,16 @@ package com.az.gitember;
 
 import com.az.gitember.misc.Const;
 import com.az.gitember.misc.GitemberUtil;
+import com.az.gitember.misc.ScmItem;
 import com.az.gitember.misc.ScmRevisionInformation;
 import com.az.gitember.ui.ActionCellValueFactory;
 import com.sun.javafx.binding.StringConstant;
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -21,13 +27,21 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Created by Igor_Azarny on 03 - Dec - 2016
  */
 public class HistoryViewController implements Initializable {
 
+    private final static Logger log = Logger.getLogger(HistoryViewController.class.getName());
+
     @FXML
     public TableView historyTableView;
 
@@ -59,6 +73,12 @@ public class HistoryViewController implements Initializable {
     private String fileName;
     private String treeName;
     private LinkedList<ScmRevisionInformation> selectedItems = new LinkedList<>();
+    private Task<Void> historyTask;
+    private final ExecutorService affectedItemsExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread th = new Thread(r, "history-affected-items");
+        th.setDaemon(true);
+        return th;
+    });
 
 
     @Override
@@ -67,7 +87,17 @@ public class HistoryViewController implements Initializable {
         authorTableColumn.setCellValueFactory(c -> StringConstant.valueOf(c.getValue().getAuthorName()));
         messageTableColumn.setCellValueFactory(c -> StringConstant.valueOf(c.getValue().getFullMessage()));
         dateTableColumn.setCellValueFactory(c -> StringConstant.valueOf(GitemberUtil.formatDate(c.getValue().getDate())));
-        actionTableColumn.setCellValueFactory(c -> new ActionCellValueFactory(null, c));
+        actionTableColumn.setCellValueFactory(c -> {
+            // changed items are computed by tree diff, so icon is set when they are ready
+            final ObjectProperty<FontIcon> icon = new SimpleObjectProperty<>();
+            final CompletableFuture<List<ScmItem>> affectedItems = c.getValue().getAffectedItemsAsync(affectedItemsExecutor);
+            if (affectedItems.isDone()) {
+                icon.set(ActionCellValueFactory.getIcon(affectedItems.join()));
+            } else {
+                affectedItems.thenAcceptAsync(items -> icon.set(ActionCellValueFactory.getIcon(items)), Platform::runLater);
+            }
+            return icon;
+        });
         historyTableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
 
@@ -101,12 +131,56 @@ public class HistoryViewController implements Initializable {
         this.treeName = treeName;
     }
 
-    public void openHistory() throws Exception {
-        historyTableView.setItems(
-                FXCollections.observableArrayList(
-                        GitemberApp.getRepositoryService().getFileHistory(treeName, fileName)
-                )
+    /**
+     * Fill history table in background. Revisions are added as soon as they are found.
+     */
+    @SuppressWarnings("unchecked")
+    public void openHistory() {
+        final ObservableList<ScmRevisionInformation> items = FXCollections.observableArrayList();
+        historyTableView.setItems(items);
+        historyTask = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                GitemberApp.getRepositoryService().getFileHistory(
+                        treeName,
+                        fileName,
+                        batch -> Platform.runLater(() -> {
+                            if (!isCancelled()) {
+                                items.addAll(batch);
+                            }
+                        }),
+                        this::isCancelled);
+                return null;
+            }
+        };
+        historyTask.setOnFailed(
+                e -> log.log(Level.SEVERE, "Cannot load history of " + fileName, historyTask.getException())
         );
+        Thread th = new Thread(historyTask);
+        th.setDaemon(true);
+        th.start();
+    }
+
+    /**
+     * Stop loading of history and of revision icons, if it is still in progress.
+     */
+    public void closeHistory() {
+        if (historyTask != null) {
+            historyTask.cancel();
+        }
+        affectedItemsExecutor.shutdownNow();
+    }
+
+    /**
+     * @param revision revision from history
+     * @return name of file in given revision, it differs from current name before rename
+     */
+    private String getFileName(final ScmRevisionInformation revision) {
+        final List<ScmItem> items = revision.getAffectedItems();
+        if (items == null || items.isEmpty()) {
+            return fileName;
+        }
+        return items.get(0).getAttribute().getName();
     }
 
     public void showDiffMenuItemClickHandler(ActionEvent actionEvent) throws Exception {
@@ -129,9 +203,10 @@ public class HistoryViewController implements Initializable {
             final String newRevisionName = newRevision.getRevisionFullName();
 
             //todo copy past from commit controller # openDiffWithLatestVersionMenuItemClickHandler
-            final String oldFile = GitemberApp.getRepositoryService().saveFile(treeName, oldRevisionName, fileName);
-            final String newFile = GitemberApp.getRepositoryService().saveFile(treeName, newRevisionName, fileName);
-            final String diffFile = GitemberApp.getRepositoryService().saveDiff(treeName,oldRevisionName , newRevisionName, fileName);
+            final String oldFile = GitemberApp.getRepositoryService().saveFile(treeName, oldRevisionName, getFileName(oldRevision));
+            final String newFile = GitemberApp.getRepositoryService().saveFile(treeName, newRevisionName, getFileName(newRevision));
+            final String diffFile = GitemberApp.getRepositoryService().saveDiff(treeName, oldRevisionName, newRevisionName,
+                    getFileName(oldRevision), getFileName(newRevision));
             final DiffViewController fileViewController = new DiffViewController();
             fileViewController.openFile(
                     new File(fileName).getName(),
@@ -144,13 +219,13 @@ public class HistoryViewController implements Initializable {
     }
 
     public void openItemMenuItemClickHandler(ActionEvent actionEvent) {
-        String revisionFullName = ((ScmRevisionInformation) historyTableView.getSelectionModel().getSelectedItem())
-                .getRevisionFullName();
+        final ScmRevisionInformation revision = (ScmRevisionInformation) historyTableView.getSelectionModel().getSelectedItem();
+        final String revisionFullName = revision.getRevisionFullName();
         try {
             final FileViewController fileViewController = new FileViewController();
             fileViewController.openFile(
-                    GitemberApp.getRepositoryService().saveFile(treeName, revisionFullName, fileName),
-                    fileName);
+                    GitemberApp.getRepositoryService().saveFile(treeName, revisionFullName, getFileName(revision)),
+                    getFileName(revision));
         } catch (Exception e) {       //todo error dialog
             e.printStackTrace();
         }
@@ -170,6 +245,7 @@ public class HistoryViewController implements Initializable {
             final Stage stage = new Stage();
             stage.setScene(scene);
             stage.setTitle(fileName);
+            stage.setOnHidden(e -> historyViewController.closeHistory());
             stage.getIcons().add(new Image(HistoryViewController.class.getClass().getResourceAsStream(Const.ICON)));
             stage.show();
 
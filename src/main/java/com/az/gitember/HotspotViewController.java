@@ -0,0 +1,77 @@
+package com.az.gitember;
+
+import com.az.gitember.misc.Const;
+import com.az.gitember.misc.GitemberUtil;
+import com.az.gitember.misc.ScmHotspot;
+import com.sun.javafx.binding.StringConstant;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.fxml.Initializable;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.image.Image;
+import javafx.stage.Stage;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+import java.util.ResourceBundle;
+
+/**
+ * Files, which are changed most often, next to the statistic report.
+ */
+public class HotspotViewController implements Initializable {
+
+    @FXML
+    public TableView<ScmHotspot> hotspotTableView;
+
+    @FXML
+    public TableColumn<ScmHotspot, String> pathTableColumn;
+
+    @FXML
+    public TableColumn<ScmHotspot, Integer> changesTableColumn;
+
+    @FXML
+    public TableColumn<ScmHotspot, Integer> authorsTableColumn;
+
+    @FXML
+    public TableColumn<ScmHotspot, String> lastChangeTableColumn;
+
+    @FXML
+    public TableColumn<ScmHotspot, Integer> linesTableColumn;
+
+    @FXML
+    public TableColumn<ScmHotspot, Long> scoreTableColumn;
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        pathTableColumn.setCellValueFactory(c -> StringConstant.valueOf(c.getValue().getPath()));
+        changesTableColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getChanges()));
+        authorsTableColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getAuthors()));
+        lastChangeTableColumn.setCellValueFactory(c -> StringConstant.valueOf(GitemberUtil.formatDate(c.getValue().getLastChange())));
+        linesTableColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getLines()));
+        scoreTableColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getScore()));
+    }
+
+    public static Parent openHotspotWindow(final List<ScmHotspot> hotspots) throws Exception {
+        final FXMLLoader fxmlLoader = new FXMLLoader();
+        try (InputStream is = HotspotViewController.class.getResource("/fxml/HotspotViewPane.fxml").openStream()) {
+            final Parent view = fxmlLoader.load(is);
+            final HotspotViewController hotspotViewController = fxmlLoader.getController();
+            hotspotViewController.hotspotTableView.setItems(FXCollections.observableArrayList(hotspots));
+
+            final Scene scene = new Scene(view, 1024, 768);
+            final Stage stage = new Stage();
+            stage.setScene(scene);
+            stage.setTitle("Hotspots");
+            stage.getIcons().add(new Image(HotspotViewController.class.getClass().getResourceAsStream(Const.ICON)));
+            stage.show();
+
+            return view;
+        }
+    }
+}
@@ -3,15 +3,23 @@ package com.az.gitember;
 import com.az.gitember.misc.Const;
 import com.az.gitember.misc.GitemberUtil;
 import com.az.gitember.misc.Pair;
+import com.az.gitember.misc.ScmActivity;
+import com.az.gitember.misc.ScmChurn;
+import com.az.gitember.misc.ScmOwnership;
 import com.az.gitember.misc.ScmRevisionInformation;
+import com.az.gitember.misc.ScmStat;
+import com.az.gitember.scm.impl.git.DefaultProgressMonitor;
 import com.az.gitember.ui.ActionCellValueFactory;
 import com.sun.javafx.binding.IntegerConstant;
 import com.sun.javafx.binding.StringConstant;
+import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -21,27 +29,45 @@ import javafx.geometry.Side;
 import javafx.scene.Group;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.AreaChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
+import javafx.scene.chart.StackedAreaChart;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.util.Callback;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import javax.swing.text.*;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
@@ -49,8 +75,38 @@ import java.util.stream.Collectors;
  */
 public class StatViewController implements Initializable {
 
+    private final static Logger log = Logger.getLogger(StatViewController.class.getName());
+
+    private static final int HEATMAP_CELL_WIDTH = 6;
+
+    private static final int HEATMAP_CELL_HEIGHT = 16;
+
+    private static final int HEATMAP_LABEL_WIDTH = 160;
+
     private GridPane gridPanel;
 
+    private final TabPane tabPane = new TabPane();
+
+    private final PieChart pieChart = new PieChart();
+
+    private final Map<String, PieChart.Data> pieData = new HashMap<>();
+
+    private final Label caption = new Label("");
+
+    private final TableView<Pair<String, Integer>> commitTable = new TableView<>();
+
+    private Map<String, Integer> shownLogMap;
+
+    /**
+     * Computations of tabs, which are cancelled, when window is closed.
+     */
+    private final List<Task<?>> tabTasks = new ArrayList<>();
+
+    /**
+     * Snapshot, which is not applied yet.
+     */
+    private final AtomicReference<ScmStat> pendingStat = new AtomicReference<>();
+
     public StatViewController() {
 
         gridPanel = new GridPane();
@@ -70,61 +126,315 @@ public class StatViewController implements Initializable {
     }
 
 
-    public static Parent openStatWindow(Map<String, Integer> authorCnt, Map<String, Integer> authorCommits) throws Exception {
-        final FXMLLoader fxmlLoader = new FXMLLoader();
-        try (InputStream is = StatViewController.class.getResource("/fxml/StatViewPane.fxml").openStream()) {
-            final Parent view = fxmlLoader.load(is);
-            final StatViewController historyViewController = fxmlLoader.getController();
-
-
-            ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
-            authorCnt.entrySet()
-                    .stream()
-                    .sorted(Map.Entry.comparingByValue())
-                    .forEach(
-                    e -> {
-                        pieChartData.add(
-                                new PieChart.Data(e.getKey(), e.getValue())
-                        );
+    /**
+     * Stacked chart of lines per author over time.
+     */
+    private static StackedAreaChart<String, Number> createOwnershipChart(ScmOwnership ownership) {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        final StackedAreaChart<String, Number> chart = new StackedAreaChart<>(new CategoryAxis(), new NumberAxis());
+        for (int a = 0; a < ownership.getAuthors().size(); a++) {
+            final XYChart.Series<String, Number> series = new XYChart.Series<>();
+            series.setName(ownership.getAuthors().get(a));
+            for (int p = 0; p < ownership.getPeriodCount(); p++) {
+                series.getData().add(new XYChart.Data<>(dateFormat.format(ownership.getPeriodDate(p)), ownership.getLines(p, a)));
+            }
+            chart.getData().add(series);
+        }
+        chart.setTitle("Code lines over time");
+        chart.setCreateSymbols(false);
+        chart.setLegendSide(Side.RIGHT);
+        return chart;
+    }
+
+    /**
+     * Weekly chart of added and deleted lines.
+     */
+    private static AreaChart<String, Number> createChurnChart(ScmChurn churn) {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        final XYChart.Series<String, Number> added = new XYChart.Series<>();
+        final XYChart.Series<String, Number> deleted = new XYChart.Series<>();
+        added.setName("Added");
+        deleted.setName("Deleted");
+        churn.getByWeek().forEach((week, lines) -> {
+            final String date = dateFormat.format(week);
+            added.getData().add(new XYChart.Data<>(date, lines.getFirst()));
+            deleted.getData().add(new XYChart.Data<>(date, lines.getSecond()));
+        });
+        final AreaChart<String, Number> chart = new AreaChart<>(new CategoryAxis(), new NumberAxis());
+        chart.getData().add(added);
+        chart.getData().add(deleted);
+        chart.setTitle("Lines per week");
+        chart.setCreateSymbols(false);
+        chart.setLegendSide(Side.RIGHT);
+        chart.setMinHeight(300);
+        return chart;
+    }
+
+    /**
+     * Table of added and deleted lines, the most changed first.
+     */
+    private static TableView<Pair<String, Pair<Long, Long>>> createChurnTable(String caption,
+                                                                             Map<String, Pair<Long, Long>> lines) {
+        final ObservableList<Pair<String, Pair<Long, Long>>> rows = FXCollections.observableArrayList();
+        lines.forEach((name, cnt) -> rows.add(new Pair<>(name, cnt)));
+        rows.sort((a, b) -> Long.compare(
+                b.getSecond().getFirst() + b.getSecond().getSecond(),
+                a.getSecond().getFirst() + a.getSecond().getSecond()));
+        final TableView<Pair<String, Pair<Long, Long>>> tableView = new TableView<>(rows);
+        final TableColumn<Pair<String, Pair<Long, Long>>, String> nameCol = new TableColumn<>(caption);
+        final TableColumn<Pair<String, Pair<Long, Long>>, Long> addedCol = new TableColumn<>("Added");
+        final TableColumn<Pair<String, Pair<Long, Long>>, Long> deletedCol = new TableColumn<>("Deleted");
+        nameCol.setCellValueFactory(c -> StringConstant.valueOf(c.getValue().getFirst()));
+        addedCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getSecond().getFirst()));
+        deletedCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getSecond().getSecond()));
+        nameCol.setPrefWidth(300);
+        tableView.getColumns().add(nameCol);
+        tableView.getColumns().add(addedCol);
+        tableView.getColumns().add(deletedCol);
+        return tableView;
+    }
+
+    private static Parent createChurnPane(ScmChurn churn) {
+        final GridPane tables = new GridPane();
+        tables.setHgap(10);
+        tables.add(createChurnTable("Author", churn.getByAuthor()), 0, 0);
+        tables.add(createChurnTable("Folder", churn.getByFolder()), 1, 0);
+        final VBox pane = new VBox(10, createChurnChart(churn), tables);
+        VBox.setVgrow(tables, Priority.ALWAYS);
+        return pane;
+    }
+
+    /**
+     * Heatmap by week of commits by author, which may be narrowed to single directory,
+     * or of changed files by directory, which may be narrowed to single author.
+     * Rows are sorted by total amount in selected directory or of selected author.
+     */
+    private static Parent createActivityPane(ScmActivity activity) {
+        final String commitsView = "Commits by author";
+        final String filesView = "Changed files by directory";
+        final ComboBox<String> viewComboBox = new ComboBox<>(FXCollections.observableArrayList(commitsView, filesView));
+        viewComboBox.getSelectionModel().select(commitsView);
+
+        // filter of commits view is directory, filter of files view is author, the most active authors first
+        final List<Integer> directoryIds = new ArrayList<>();
+        for (int d = 0; d < activity.getDirectories().size(); d++) {
+            directoryIds.add(d);
+        }
+        directoryIds.sort(Comparator.comparing(activity.getDirectories()::get));
+        final int[] commitsPerAuthor = activity.getCommitsPerAuthor();
+        final List<Integer> authorIds = new ArrayList<>();
+        for (int a = 0; a < commitsPerAuthor.length; a++) {
+            if (commitsPerAuthor[a] > 0) {
+                authorIds.add(a);
+            }
+        }
+        authorIds.sort((a, b) -> Integer.compare(commitsPerAuthor[b], commitsPerAuthor[a]));
+        final ComboBox<String> filterComboBox = new ComboBox<>();
+        final List<Integer> filterIds = new ArrayList<>();
+        final Runnable fillFilter = () -> {
+            final boolean files = filesView.equals(viewComboBox.getValue());
+            filterIds.clear();
+            filterIds.addAll(files ? authorIds : directoryIds);
+            final List<String> items = new ArrayList<>();
+            items.add(files ? "All authors" : "All directories");
+            filterIds.forEach(id -> items.add(files
+                    ? activity.getAuthors().get(id) + " (" + commitsPerAuthor[id] + ")"
+                    : activity.getDirectories().get(id)));
+            filterComboBox.getItems().setAll(items);
+            filterComboBox.getSelectionModel().select(0);
+        };
+        fillFilter.run();
+
+        final Label cellInfo = new Label();
+        final Canvas canvas = new Canvas();
+        final int[][][] shown = new int[1][][];
+        final List<Integer> shownRows = new ArrayList<>();
+        final List<String> shownNames = new ArrayList<>();
+
+        final Runnable draw = () -> {
+            final boolean files = filesView.equals(viewComboBox.getValue());
+            final int filterIdx = filterComboBox.getSelectionModel().getSelectedIndex();
+            final int filter = filterIdx <= 0 ? ScmActivity.ALL : filterIds.get(filterIdx - 1);
+            final int[][] counts = files ? activity.getFilesByDirectory(filter) : activity.getCommitsByAuthor(filter);
+            final List<String> names = files ? activity.getDirectories() : activity.getAuthors();
+            final int[] total = new int[counts.length];
+            int max = 1;
+            shownRows.clear();
+            for (int a = 0; a < counts.length; a++) {
+                for (int cnt : counts[a]) {
+                    total[a] += cnt;
+                    max = Math.max(max, cnt);
+                }
+                if (total[a] > 0) {
+                    shownRows.add(a);
+                }
+            }
+            shownRows.sort((a, b) -> Integer.compare(total[b], total[a]));
+            shownNames.clear();
+            shownNames.addAll(names);
+            shown[0] = counts;
+
+            canvas.setWidth(HEATMAP_LABEL_WIDTH + activity.getWeekCount() * HEATMAP_CELL_WIDTH);
+            canvas.setHeight(HEATMAP_CELL_HEIGHT * (shownRows.size() + 1));
+            final GraphicsContext gc = canvas.getGraphicsContext2D();
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            gc.setFill(Color.BLACK);
+            final SimpleDateFormat yearFormat = new SimpleDateFormat("yyyy");
+            String year = "";
+            for (int w = 0; w < activity.getWeekCount(); w++) {
+                final String weekYear = yearFormat.format(activity.getWeekDate(w));
+                if (!weekYear.equals(year)) {
+                    year = weekYear;
+                    gc.fillText(year, HEATMAP_LABEL_WIDTH + w * HEATMAP_CELL_WIDTH, HEATMAP_CELL_HEIGHT - 4);
+                }
+            }
+            final double logMax = Math.log1p(max);
+            for (int r = 0; r < shownRows.size(); r++) {
+                final int a = shownRows.get(r);
+                final double y = (r + 1) * HEATMAP_CELL_HEIGHT;
+                gc.setFill(Color.BLACK);
+                gc.fillText(names.get(a), 0, y + HEATMAP_CELL_HEIGHT - 4, HEATMAP_LABEL_WIDTH - 4);
+                for (int w = 0; w < counts[a].length; w++) {
+                    if (counts[a][w] > 0) {
+                        gc.setFill(Color.WHITE.interpolate(Color.DARKGREEN, 0.15 + 0.85 * Math.log1p(counts[a][w]) / logMax));
+                        gc.fillRect(HEATMAP_LABEL_WIDTH + w * HEATMAP_CELL_WIDTH, y + 1, HEATMAP_CELL_WIDTH - 1, HEATMAP_CELL_HEIGHT - 2);
                     }
-            );
+                }
+            }
+        };
+        draw.run();
+        filterComboBox.setOnAction(e -> draw.run());
+        viewComboBox.setOnAction(e -> {
+            fillFilter.run();
+            draw.run();
+        });
+
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        canvas.setOnMouseMoved(e -> {
+            final int r = (int) (e.getY() / HEATMAP_CELL_HEIGHT) - 1;
+            final int w = (int) ((e.getX() - HEATMAP_LABEL_WIDTH) / HEATMAP_CELL_WIDTH);
+            if (r >= 0 && r < shownRows.size() && e.getX() >= HEATMAP_LABEL_WIDTH && w < activity.getWeekCount()) {
+                final int a = shownRows.get(r);
+                cellInfo.setText(shownNames.get(a) + ", week of " + dateFormat.format(activity.getWeekDate(w))
+                        + ": " + shown[0][a][w]
+                        + (filesView.equals(viewComboBox.getValue()) ? " changed files" : " commits"));
+            } else {
+                cellInfo.setText("");
+            }
+        });
+
+        final ScrollPane scrollPane = new ScrollPane(canvas);
+        final VBox pane = new VBox(10, new HBox(10, viewComboBox, filterComboBox, cellInfo), scrollPane);
+        VBox.setVgrow(scrollPane, Priority.ALWAYS);
+        return pane;
+    }
+
+    /**
+     * Computation of tab content.
+     *
+     * @param <T> type of computed data
+     */
+    @FunctionalInterface
+    private interface TabComputation<T> {
+        T compute(ProgressMonitor progressMonitor) throws Exception;
+    }
 
-            final PieChart chart = new PieChart(pieChartData);
-            chart.setTitle("Code lines");
-            chart.setLabelLineLength(10);
-            chart.setLegendSide(Side.RIGHT);
-            chart.setMinWidth(600);
-            chart.setMinHeight(600);
-
-            final Label caption = new Label("");
-
-            caption.setTextFill(Color.DARKORANGE);
-            caption.setStyle("-fx-font: 24 arial;");
-
-            for (final PieChart.Data data : chart.getData()) {
-                data.getNode().addEventHandler(MouseEvent.MOUSE_PRESSED,
-                        new EventHandler<MouseEvent>() {
-                            @Override public void handle(MouseEvent e) {
-                                caption.setTranslateX(e.getSceneX());
-                                caption.setTranslateY(e.getSceneY() - chart.getHeight() / 2);
-                                caption.setText(String.valueOf((int)data.getPieValue()) + " lines");
-                            }
-                        });
+    /**
+     * Tab, which computes its data in background, when it is selected the first time. Progress and
+     * cancel button are shown in tab meanwhile, computation can be started again after cancel or error.
+     *
+     * @param title       tab title
+     * @param computation computation of data, called from background thread
+     * @param view        creates tab content from computed data
+     * @param <T>         type of computed data
+     * @return tab
+     */
+    private <T> Tab createComputedTab(final String title,
+                                      final TabComputation<T> computation,
+                                      final Function<T, Parent> view) {
+        final Tab tab = new Tab(title);
+        final Button startButton = new Button("Compute");
+        final Runnable start = () -> {
+            final Task<T> task = new Task<T>() {
+                @Override
+                protected T call() throws Exception {
+                    return computation.compute(new DefaultProgressMonitor((t, d) -> {
+                        updateMessage(t);
+                        updateProgress(d, 1.0);
+                    }, this::isCancelled));
+                }
+            };
+            final ProgressBar progressBar = new ProgressBar();
+            progressBar.progressProperty().bind(task.progressProperty());
+            final Label progressLabel = new Label();
+            progressLabel.textProperty().bind(task.messageProperty());
+            final Button cancelButton = new Button("Cancel");
+            cancelButton.setOnAction(e -> task.cancel(true));
+            tab.setContent(new HBox(10, progressBar, progressLabel, cancelButton));
+            task.setOnSucceeded(e -> {
+                tabTasks.remove(task);
+                tab.setContent(view.apply(task.getValue()));
+            });
+            task.setOnCancelled(e -> {
+                tabTasks.remove(task);
+                tab.setContent(new HBox(10, new Label(title + " was cancelled"), startButton));
+            });
+            task.setOnFailed(e -> {
+                tabTasks.remove(task);
+                log.log(Level.WARNING, "Cannot compute " + title, task.getException());
+                tab.setContent(new HBox(10, new Label("Cannot compute " + title), startButton));
+            });
+            tabTasks.add(task);
+            final Thread th = new Thread(task);
+            th.setDaemon(true);
+            th.start();
+        };
+        startButton.setOnAction(e -> start.run());
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected() && tab.getContent() == null) {
+                start.run();
             }
+        });
+        return tab;
+    }
+
+    /**
+     * Open activity heatmap in separate window.
+     *
+     * @param activity activity of repository
+     */
+    public static void openActivityWindow(ScmActivity activity) {
+        final Scene scene = new Scene(createActivityPane(activity), 1024, 768);
+        final Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.setTitle("Activity");
+        stage.getIcons().add(new Image(StatViewController.class.getClass().getResourceAsStream(Const.ICON)));
+        stage.show();
+    }
 
-            ObservableList<Pair<String, Integer>> commitCounter = FXCollections.observableArrayList();
-            authorCommits.entrySet()
-                    .stream()
-                    .sorted(Map.Entry.comparingByValue())
-                    .forEach(
-                            e -> {
-                                commitCounter.add(
-                                        new Pair<String, Integer>(e.getKey(), e.getValue())
-                                );
-                            }
-                    );
-
-            TableView<Pair<String, Integer>> tableView = new TableView<>(commitCounter);
+    /**
+     * Open empty statistic window. Data are shown by {@link #update(ScmStat)}, while report is computed.
+     *
+     * @return controller of opened window
+     */
+    public static StatViewController openStatWindow() throws Exception {
+        final FXMLLoader fxmlLoader = new FXMLLoader();
+        try (InputStream is = StatViewController.class.getResource("/fxml/StatViewPane.fxml").openStream()) {
+            fxmlLoader.load(is);
+            final StatViewController controller = fxmlLoader.getController();
+
+            controller.pieChart.setTitle("Code lines");
+            controller.pieChart.setLabelLineLength(10);
+            controller.pieChart.setLegendSide(Side.RIGHT);
+            controller.pieChart.setMinWidth(600);
+            controller.pieChart.setMinHeight(600);
+            // values are changed several times per second, while report is computed
+            controller.pieChart.setAnimated(false);
+
+            controller.caption.setTextFill(Color.DARKORANGE);
+            controller.caption.setStyle("-fx-font: 24 arial;");
+
+            final TableView<Pair<String, Integer>> tableView = controller.commitTable;
             TableColumn<Pair<String, Integer>, String> firstNameCol = new TableColumn("Author");
             TableColumn<Pair<String, Integer>, Integer> commitsCol = new TableColumn("Commits");
             tableView.getColumns().addAll(firstNameCol, commitsCol);
@@ -158,23 +468,88 @@ public class StatViewController implements Initializable {
                 };
             });
 
-
-            final Scene scene = new Scene(historyViewController.gridPanel, 1024, 768);
-            historyViewController.gridPanel.add(new Label("   "),0,0);
-            historyViewController.gridPanel.add(chart,1,1);
-            historyViewController.gridPanel.add(caption,1,1);
-            historyViewController.gridPanel.add(tableView,2,1);
+            controller.gridPanel.add(new Label("   "),0,0);
+            controller.gridPanel.add(controller.pieChart,1,1);
+            controller.gridPanel.add(controller.caption,1,1);
+            controller.gridPanel.add(tableView,2,1);
+
+            controller.tabPane.getTabs().add(new Tab("Code lines", new ScrollPane(controller.gridPanel)));
+            // history wide computations are started only for selected tab, so code lines are not delayed by them
+            controller.tabPane.getTabs().add(controller.createComputedTab(
+                    "Ownership",
+                    GitemberApp.getRepositoryService()::getOwnershipTimeline,
+                    StatViewController::createOwnershipChart));
+            controller.tabPane.getTabs().add(controller.createComputedTab(
+                    "Churn",
+                    GitemberApp.getRepositoryService()::getChurn,
+                    StatViewController::createChurnPane));
+            controller.tabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+            final Scene scene = new Scene(controller.tabPane, 1024, 768);
 
             final Stage stage = new Stage();
+            stage.setOnHidden(e -> new ArrayList<>(controller.tabTasks).forEach(task -> task.cancel(true)));
             stage.setScene(scene);
             stage.setTitle("Statistic report");
             stage.getIcons().add(new Image(StatViewController.class.getClass().getResourceAsStream(Const.ICON)));
             stage.show();
 
+            return controller;
+        }
+    }
 
-            return view;
+    /**
+     * Show snapshot of statistic. May be called from any thread, snapshots are applied on FX thread
+     * and only the last one is applied, if several come before FX thread gets to them.
+     *
+     * @param scmStat snapshot
+     */
+    public void update(ScmStat scmStat) {
+        if (pendingStat.getAndSet(scmStat) == null) {
+            Platform.runLater(() -> apply(pendingStat.getAndSet(null)));
+        }
+    }
 
+    private void apply(ScmStat scmStat) {
+        final Map<String, Integer> authorCnt = scmStat.getTotal();
+        if (authorCnt != null) {
+            if (pieData.keySet().equals(authorCnt.keySet())) {
+                authorCnt.forEach((author, cnt) -> pieData.get(author).setPieValue(cnt));
+            } else {
+                pieData.clear();
+                final ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+                authorCnt.entrySet()
+                        .stream()
+                        .sorted(Map.Entry.comparingByValue())
+                        .forEach(
+                                e -> {
+                                    final PieChart.Data data = new PieChart.Data(e.getKey(), e.getValue());
+                                    pieData.put(e.getKey(), data);
+                                    pieChartData.add(data);
+                                }
+                        );
+                pieChart.setData(pieChartData);
+                for (final PieChart.Data data : pieChart.getData()) {
+                    data.getNode().addEventHandler(MouseEvent.MOUSE_PRESSED,
+                            new EventHandler<MouseEvent>() {
+                                @Override public void handle(MouseEvent e) {
+                                    caption.setTranslateX(e.getSceneX());
+                                    caption.setTranslateY(e.getSceneY() - pieChart.getHeight() / 2);
+                                    caption.setText(String.valueOf((int)data.getPieValue()) + " lines");
+                                }
+                            });
+                }
+            }
+        }
 
+        if (scmStat.getLogMap() != null && scmStat.getLogMap() != shownLogMap) {
+            shownLogMap = scmStat.getLogMap();
+            commitTable.setItems(
+                    shownLogMap.entrySet()
+                            .stream()
+                            .sorted(Map.Entry.comparingByValue())
+                            .map(e -> new Pair<>(e.getKey(), e.getValue()))
+                            .collect(Collectors.toCollection(FXCollections::observableArrayList))
+            );
         }
     }
 }
@@ -2,6 +2,9 @@ package com.az.gitember;
 
 import com.az.gitember.misc.*;
 import com.az.gitember.scm.exception.GEScmAPIException;
+import com.az.gitember.scm.impl.git.GitRepositoryService;
+import com.az.gitember.scm.impl.git.IndexBatch;
+import com.az.gitember.scm.impl.git.WorkingCopyWatcher;
 import com.az.gitember.ui.AutoCompleteTextField;
 import com.az.gitember.ui.StatusCellValueFactory;
 import com.sun.javafx.binding.StringConstant;
@@ -32,12 +35,18 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Created by Igor_Azarny on 23.12.2016.
@@ -79,6 +88,17 @@ public class WorkingCopyController implements Initializable {
 
     private Consumer<Object> onStashCreated;
 
+    /**
+     * Statuses are read one by one, so the later result is not overwritten by the earlier one.
+     */
+    private final ExecutorService statusExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread th = new Thread(r, "working copy status");
+        th.setDaemon(true);
+        return th;
+    });
+
+    private WorkingCopyWatcher watcher = null;
+
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -111,20 +131,19 @@ public class WorkingCopyController implements Initializable {
                                     ScmItem currItem = param
                                             .getTableView().getItems()
                                             .get(currentIndex);
-                                    if (currItem.getAttribute().getStatus().contains(ScmItemStatus.MODIFIED)) {
+                                    final ScmItemAttribute attr = currItem.getAttribute();
+                                    if (attr.hasAnyStatus(ScmItemStatusMask.MODIFIED)) {
                                         setStyle("-fx-background-color: #49ee52;");
-                                    } else if (currItem.getAttribute().getStatus().contains(ScmItemStatus.MISSED)) {
+                                    } else if (attr.hasAnyStatus(ScmItemStatusMask.MISSED)) {
                                         setStyle("-fx-background-color: #a3a3a3;");
-                                    } else if (currItem.getAttribute().getStatus().contains(ScmItemStatus.CONFLICT)) {
+                                    } else if (attr.hasAnyStatus(ScmItemStatusMask.CONFLICT)) {
                                         setStyle("-fx-background-color: #dd37d4;");
-                                    } else if (currItem.getAttribute().getStatus().contains(ScmItemStatus.UNTRACKED_FOLDER)) {
-                                        setStyle("-fx-background-color: #f0262b;");
-                                    } else if (currItem.getAttribute().getStatus().contains(ScmItemStatus.UNTRACKED)) {
+                                    } else if (attr.hasAnyStatus(ScmItemStatusMask.UNTRACKED_FOLDER | ScmItemStatusMask.UNTRACKED)) {
                                         setStyle("-fx-background-color: #f0262b;");
                                     } else if (
-                                            (currItem.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED) && currItem.getAttribute().getStatus().size() == 1)
-                                            || (currItem.getAttribute().getStatus().contains(ScmItemStatus.REMOVED) && currItem.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED))
-                                            || (currItem.getAttribute().getStatus().contains(ScmItemStatus.ADDED) && currItem.getAttribute().getStatus().contains(ScmItemStatus.CHANGED))
+                                            attr.hasOnlyStatuses(ScmItemStatusMask.UNCOMMITED)
+                                            || attr.hasAllStatuses(ScmItemStatusMask.REMOVED | ScmItemStatusMask.UNCOMMITED)
+                                            || attr.hasAllStatuses(ScmItemStatusMask.ADDED | ScmItemStatusMask.CHANGED)
 
                                             ) {
                                         setStyle("-fx-background-color: #517de6;");
@@ -140,7 +159,7 @@ public class WorkingCopyController implements Initializable {
         );
 
         statusTableColumn.setCellValueFactory(
-                c -> new StatusCellValueFactory(c.getValue().getAttribute().getStatus())
+                c -> new StatusCellValueFactory(c.getValue().getAttribute().getStatusMask())
         ); //TODO add tooltip
 
         selectTableColumn.setCellValueFactory(
@@ -149,6 +168,8 @@ public class WorkingCopyController implements Initializable {
 
         selectTableColumn.setCellFactory(p -> new CheckBoxTableCell<ScmItem, Boolean>());
 
+        workingCopyTableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         workingCopyTableView.setRowFactory(
                 tr -> {
                     return new TableRow<ScmItem>() {
@@ -179,7 +200,7 @@ public class WorkingCopyController implements Initializable {
                             if (!empty) {
                                 setContextMenu(scmItemContextMenu);
                                 setOnContextMenuRequested(event -> {
-                                    boolean isConflict = item.getAttribute().getStatus().contains(ScmItemStatus.CONFLICT);
+                                    boolean isConflict = item.getAttribute().hasAnyStatus(ScmItemStatusMask.CONFLICT);
                                     conflictResolveUsingMy.setVisible(isConflict);
                                     conflictResolveUsingTheir.setVisible(isConflict);
                                     conflictResolved.setVisible(isConflict);
@@ -391,13 +412,110 @@ public class WorkingCopyController implements Initializable {
         );
 
         Platform.runLater(
-                () -> {
-                    Thread th = new Thread(longTask);
-                    th.start();
+                () -> statusExecutor.submit(longTask)
+        );
+
+    }
 
+    /**
+     * Watch working copy and update statuses of changed files only.
+     */
+    private void watch() {
+        final GitRepositoryService repositoryService = GitemberApp.getRepositoryService();
+        try {
+            watcher = repositoryService.watchWorkingCopy(new WorkingCopyWatcher.Listener() {
+                @Override
+                public void changed(Set<String> paths, boolean indexChanged) {
+                    Platform.runLater(() -> {
+                        if (!statusExecutor.isShutdown()) {
+                            update(repositoryService, paths, indexChanged);
+                        }
+                    });
                 }
-        );
 
+                @Override
+                public void overflow() {
+                    Platform.runLater(() -> {
+                        if (!statusExecutor.isShutdown()) {
+                            open(branch, null);
+                        }
+                    });
+                }
+            });
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot watch working copy, it will be refreshed on focus", e);
+        }
+    }
+
+    /**
+     * Read statuses of changed paths and replace them in table.
+     * If index was changed, statuses of all shown files and files with staged changes are read again.
+     */
+    @SuppressWarnings("unchecked")
+    private void update(final GitRepositoryService repositoryService, final Set<String> paths, final boolean indexChanged) {
+        final Set<String> affected = new TreeSet<>(paths);
+        if (indexChanged) {
+            workingCopyTableView.getItems().forEach(i -> affected.add(((ScmItem) i).getShortName()));
+        }
+        Task<List<ScmItem>> longTask = new Task<List<ScmItem>>() {
+            @Override
+            protected List<ScmItem> call() throws Exception {
+                if (indexChanged) {
+                    affected.addAll(repositoryService.getStagedPaths());
+                }
+                return affected.isEmpty() ? Collections.emptyList() : repositoryService.getStatuses(affected);
+            }
+        };
+
+        longTask.setOnSucceeded(z -> {
+            final Set<String> names = longTask.getValue().stream().map(ScmItem::getShortName).collect(Collectors.toSet());
+            workingCopyTableView.getItems().removeIf(o -> {
+                final String name = ((ScmItem) o).getShortName();
+                return names.contains(name) || isUnder(name, affected);
+            });
+            workingCopyTableView.getItems().addAll(longTask.getValue());
+            FXCollections.sort(workingCopyTableView.getItems(),
+                    (o1, o2) -> ((ScmItem) o1).getShortName().compareTo(((ScmItem) o2).getShortName()));
+            workingCopyTableView.refresh();
+        });
+
+        longTask.setOnFailed(z -> log.log(Level.WARNING, "Cannot update item statuses", z.getSource().getException()));
+
+        statusExecutor.submit(longTask);
+    }
+
+    /**
+     * @return true if path is one of given paths or is under one of them
+     */
+    private static boolean isUnder(final String path, final Set<String> paths) {
+        if (paths.contains(path)) {
+            return true;
+        }
+        for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+            if (paths.contains(path.substring(0, slash))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Refresh statuses, when main window gets focus, unless changes are watched.
+     */
+    public void refreshOnFocus() {
+        if (watcher == null || !watcher.isActive()) {
+            open(branch, null);
+        }
+    }
+
+    /**
+     * Stop watching of working copy.
+     */
+    public void close() {
+        if (watcher != null) {
+            watcher.close();
+        }
+        statusExecutor.shutdown();
     }
 
     //---------------------------------------------------------------------------------------------------------------//
@@ -414,9 +532,11 @@ public class WorkingCopyController implements Initializable {
      */
     @SuppressWarnings({"unchecked", "unused"})
     public void stageAllBtnHandler(ActionEvent actionEvent) {
+        final IndexBatch batch = GitemberApp.getRepositoryService().createIndexBatch();
         workingCopyTableView.getItems().stream()
                 .filter(i -> (isUnstaged((ScmItem) i)))
-                .forEach(i -> stageUnstageItem((ScmItem) i));
+                .forEach(i -> stageItem((ScmItem) i, batch));
+        applyIndexBatch(batch, "Cannot add items to stage");
         workingCopyTableView.refresh();
     }
 
@@ -427,9 +547,17 @@ public class WorkingCopyController implements Initializable {
      */
     @SuppressWarnings({"unchecked", "unused"})
     public void unstageAllBtnHandler(ActionEvent actionEvent) {
+        final IndexBatch batch = GitemberApp.getRepositoryService().createIndexBatch();
         workingCopyTableView.getItems().stream()
                 .filter(i -> (!isUnstaged((ScmItem) i)))
-                .forEach(i -> stageUnstageItem((ScmItem) i));
+                .forEach(i -> {
+                    if (isStaged((ScmItem) i)) {
+                        unstageItem((ScmItem) i, batch);
+                    } else {
+                        resolveConflictItem((ScmItem) i, batch);
+                    }
+                });
+        applyIndexBatch(batch, "Cannot unstage items");
         workingCopyTableView.refresh();
     }
 
@@ -536,20 +664,27 @@ public class WorkingCopyController implements Initializable {
     }
 
     /**
-     * Revert file changes.
+     * Revert changes of selected files.
      *
      * @param actionEvent event
      */
-    @SuppressWarnings("unused")
+    @SuppressWarnings({"unchecked", "unused"})
     public void revertEventHandler(ActionEvent actionEvent) {
-        final ScmItem item = (ScmItem) workingCopyTableView.getSelectionModel().getSelectedItem();
-        if (item != null) {
+        final List<ScmItem> items = (List<ScmItem>) workingCopyTableView.getSelectionModel().getSelectedItems()
+                .stream()
+                .map(i -> (ScmItem) i)
+                .collect(Collectors.toList());
+        if (!items.isEmpty()) {
             Optional<ButtonType> result = GitemberApp.showResult(
-                    "Revert " + item.getShortName() + " changes ?",
+                    items.size() == 1
+                            ? "Revert " + items.get(0).getShortName() + " changes ?"
+                            : "Revert changes of " + items.size() + " files ?",
                     Alert.AlertType.CONFIRMATION);
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                GitemberApp.getRepositoryService().checkoutFile(item.getShortName());
-                open(branch, item.getShortName());
+                final IndexBatch batch = GitemberApp.getRepositoryService().createIndexBatch();
+                items.forEach(i -> batch.checkout(i.getShortName()));
+                applyIndexBatch(batch, "Cannot revert changes");
+                open(branch, items.size() == 1 ? items.get(0).getShortName() : null);
             }
         }
     }
@@ -637,14 +772,12 @@ public class WorkingCopyController implements Initializable {
 
 
     private boolean isStaged(ScmItem scmItem) {
-        return scmItem.getAttribute().getStatus().contains(ScmItemStatus.ADDED)
-                || scmItem.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED);
+        return scmItem.getAttribute().hasAnyStatus(ScmItemStatusMask.ADDED | ScmItemStatusMask.UNCOMMITED);
     }
 
     private boolean isUnstaged(ScmItem scmItem) {
-        return scmItem.getAttribute().getStatus().contains(ScmItemStatus.MODIFIED)
-                || scmItem.getAttribute().getStatus().contains(ScmItemStatus.MISSED)
-                || scmItem.getAttribute().getStatus().contains(ScmItemStatus.UNTRACKED);
+        return scmItem.getAttribute().hasAnyStatus(
+                ScmItemStatusMask.MODIFIED | ScmItemStatusMask.MISSED | ScmItemStatusMask.UNTRACKED);
     }
 
 
@@ -667,99 +800,127 @@ public class WorkingCopyController implements Initializable {
 
 
     private void stageItem(ScmItem item) {
-        try {
-            if (item != null) {
-                if (isUnstaged(item)) {
-                    if (item.getAttribute().getStatus().contains(ScmItemStatus.MISSED)) {
-                        GitemberApp.getRepositoryService().removeMissedFile(item.getShortName());
-                        item.getAttribute().getStatus().remove(ScmItemStatus.MISSED);
-                        item.getAttribute().getStatus().add(ScmItemStatus.REMOVED);
-                    } else if (item.getAttribute().getStatus().contains(ScmItemStatus.UNTRACKED)) {
-                        GitemberApp.getRepositoryService().addFileToCommitStage(item.getShortName());
-                        item.getAttribute().getStatus().remove(ScmItemStatus.UNTRACKED);
-                        item.getAttribute().getStatus().add(ScmItemStatus.ADDED);
-                        item.getAttribute().getStatus().add(ScmItemStatus.CHANGED);
-                        item.getAttribute().getStatus().add(ScmItemStatus.UNCOMMITED);
-                    } else {
-                        GitemberApp.getRepositoryService().addFileToCommitStage(item.getShortName());
-                        item.getAttribute().getStatus().remove(ScmItemStatus.MODIFIED);
-                    }
-                }
+        if (item != null) {
+            final IndexBatch batch = GitemberApp.getRepositoryService().createIndexBatch();
+            stageItem(item, batch);
+            applyIndexBatch(batch, "Cannot add item " + item.getShortName() + " to stage");
+        }
+    }
+
+    /**
+     * Put stage operation of item into batch and change item status accordingly.
+     */
+    private void stageItem(ScmItem item, IndexBatch batch) {
+        if (isUnstaged(item)) {
+            if (item.getAttribute().getStatus().contains(ScmItemStatus.MISSED)) {
+                batch.remove(item.getShortName());
+                item.getAttribute().getStatus().remove(ScmItemStatus.MISSED);
+                item.getAttribute().getStatus().add(ScmItemStatus.REMOVED);
+            } else if (item.getAttribute().getStatus().contains(ScmItemStatus.UNTRACKED)) {
+                batch.add(item.getShortName());
+                item.getAttribute().getStatus().remove(ScmItemStatus.UNTRACKED);
+                item.getAttribute().getStatus().add(ScmItemStatus.ADDED);
+                item.getAttribute().getStatus().add(ScmItemStatus.CHANGED);
+                item.getAttribute().getStatus().add(ScmItemStatus.UNCOMMITED);
+            } else {
+                batch.add(item.getShortName());
+                item.getAttribute().getStatus().remove(ScmItemStatus.MODIFIED);
             }
-        } catch (Exception e) {
-            GitemberApp.showException("Cannot add item " + item.getShortName() + " to stage", e);
         }
     }
 
 
     private void unstageItem(ScmItem item) {
-        try {
-            if (item != null) {
-                if (isStaged(item)) {
-                    if (item.getAttribute().getStatus().contains(ScmItemStatus.REMOVED)
-                            && item.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED)
-                            && item.getAttribute().getStatus().size() == 2) {
-                        GitemberApp.getRepositoryService().removeFileFromCommitStage(item.getShortName());
-                        item.getAttribute().getStatus().remove(ScmItemStatus.REMOVED);
-                        item.getAttribute().getStatus().add(ScmItemStatus.MISSED);
-                    } else if (item.getAttribute().getStatus().contains(ScmItemStatus.ADDED)
-                            && item.getAttribute().getStatus().contains(ScmItemStatus.CHANGED)
-                            && item.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED)
-                            && item.getAttribute().getStatus().size() == 3) {
-                        GitemberApp.getRepositoryService().removeFileFromCommitStage(item.getShortName());
-                        item.getAttribute().getStatus().clear();
-                        item.getAttribute().getStatus().add(ScmItemStatus.UNTRACKED);
-
-                    } else if (item.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED)
-                            && item.getAttribute().getStatus().size() == 1) {
-                        GitemberApp.getRepositoryService().removeFileFromCommitStage(item.getShortName());
-                        item.getAttribute().getStatus().add(ScmItemStatus.MODIFIED);
-                    }
-                }
+        if (item != null) {
+            final IndexBatch batch = GitemberApp.getRepositoryService().createIndexBatch();
+            unstageItem(item, batch);
+            applyIndexBatch(batch, "Cannot unstage item " + item.getShortName());
+        }
+    }
+
+    /**
+     * Put unstage operation of item into batch and change item status accordingly.
+     */
+    private void unstageItem(ScmItem item, IndexBatch batch) {
+        if (isStaged(item)) {
+            if (item.getAttribute().getStatus().contains(ScmItemStatus.REMOVED)
+                    && item.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED)
+                    && item.getAttribute().getStatus().size() == 2) {
+                batch.reset(item.getShortName());
+                item.getAttribute().getStatus().remove(ScmItemStatus.REMOVED);
+                item.getAttribute().getStatus().add(ScmItemStatus.MISSED);
+            } else if (item.getAttribute().getStatus().contains(ScmItemStatus.ADDED)
+                    && item.getAttribute().getStatus().contains(ScmItemStatus.CHANGED)
+                    && item.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED)
+                    && item.getAttribute().getStatus().size() == 3) {
+                batch.reset(item.getShortName());
+                item.getAttribute().getStatus().clear();
+                item.getAttribute().getStatus().add(ScmItemStatus.UNTRACKED);
+
+            } else if (item.getAttribute().getStatus().contains(ScmItemStatus.UNCOMMITED)
+                    && item.getAttribute().getStatus().size() == 1) {
+                batch.reset(item.getShortName());
+                item.getAttribute().getStatus().add(ScmItemStatus.MODIFIED);
             }
-        } catch (Exception e) {
-            GitemberApp.showException("Cannot unstage item " + item.getShortName(), e);
         }
     }
 
-    private void stageUnstageItem(ScmItem item) {
+    /**
+     * Apply batch. Statuses of items were changed already, so working copy is read again, if batch fails.
+     */
+    private void applyIndexBatch(IndexBatch batch, String errorMessage) {
         try {
-            if (item != null) {
-                if (isUnstaged(item)) {
-                    stageItem(item);
-                } else if (isStaged(item)) {
-                    unstageItem(item);
-                } else if (item.getAttribute().getStatus().contains(ScmItemStatus.CONFLICT)) {
-
-                    // mark resolved. so nothing meaningful, just delete of add as it even.
-                    if (ScmItemStatus.CONFLICT_DELETED_BY_THEM.equals(item.getAttribute().getSubstatus())
-                            || ScmItemStatus.CONFLICT_DELETED_BY_US.equals(item.getAttribute().getSubstatus())
-                            || ScmItemStatus.CONFLICT_BOTH_DELETED.equals(item.getAttribute().getSubstatus())
-                    ) {
-                        if (Files.exists(Paths.get(item.getShortName()))) {
-                            GitemberApp.getRepositoryService().addFileToCommitStage(item.getShortName());
-                            item.getAttribute().getStatus().remove(ScmItemStatus.CONFLICT);
-                            item.getAttribute().getStatus().add(ScmItemStatus.CHANGED);
-                            item.getAttribute().getStatus().add(ScmItemStatus.UNCOMMITED);
-                        } else {
-                            GitemberApp.getRepositoryService().removeMissedFile(item.getShortName());
-                            item.getAttribute().getStatus().remove(ScmItemStatus.MISSED);
-                            item.getAttribute().getStatus().add(ScmItemStatus.REMOVED);
-                        }
-                    } else if (ScmItemStatus.CONFLICT_ADDED_BY_US.equals(item.getAttribute().getSubstatus())
-                            || ScmItemStatus.CONFLICT_ADDED_BY_THEM.equals(item.getAttribute().getSubstatus())
-                            || ScmItemStatus.CONFLICT_BOTH_ADDED.equals(item.getAttribute().getSubstatus())
-                            || ScmItemStatus.CONFLICT_BOTH_MODIFIED.equals(item.getAttribute().getSubstatus())) {
-                        GitemberApp.getRepositoryService().addFileToCommitStage(item.getShortName());
-                        item.getAttribute().getStatus().remove(ScmItemStatus.CONFLICT);
-                        item.getAttribute().getStatus().add(ScmItemStatus.CHANGED);
-                        item.getAttribute().getStatus().add(ScmItemStatus.UNCOMMITED);
-                    }
+            batch.apply();
+        } catch (IOException e) {
+            GitemberApp.showException(errorMessage, e);
+            open(branch, null);
+        }
+    }
 
+    private void stageUnstageItem(ScmItem item) {
+        if (item != null) {
+            if (isUnstaged(item)) {
+                stageItem(item);
+            } else if (isStaged(item)) {
+                unstageItem(item);
+            } else if (item.getAttribute().getStatus().contains(ScmItemStatus.CONFLICT)) {
+                final IndexBatch batch = GitemberApp.getRepositoryService().createIndexBatch();
+                resolveConflictItem(item, batch);
+                applyIndexBatch(batch, "Cannot add item " + item.getShortName() + " to stage");
+            }
+        }
+    }
+
+    /**
+     * Put operation, which marks conflict of item as resolved, into batch and change item status accordingly.
+     */
+    private void resolveConflictItem(ScmItem item, IndexBatch batch) {
+        if (item.getAttribute().getStatus().contains(ScmItemStatus.CONFLICT)) {
+
+            // mark resolved. so nothing meaningful, just delete of add as it even.
+            if (ScmItemStatus.CONFLICT_DELETED_BY_THEM.equals(item.getAttribute().getSubstatus())
+                    || ScmItemStatus.CONFLICT_DELETED_BY_US.equals(item.getAttribute().getSubstatus())
+                    || ScmItemStatus.CONFLICT_BOTH_DELETED.equals(item.getAttribute().getSubstatus())
+            ) {
+                if (Files.exists(Paths.get(item.getShortName()))) {
+                    batch.add(item.getShortName());
+                    item.getAttribute().getStatus().remove(ScmItemStatus.CONFLICT);
+                    item.getAttribute().getStatus().add(ScmItemStatus.CHANGED);
+                    item.getAttribute().getStatus().add(ScmItemStatus.UNCOMMITED);
+                } else {
+                    batch.remove(item.getShortName());
+                    item.getAttribute().getStatus().remove(ScmItemStatus.MISSED);
+                    item.getAttribute().getStatus().add(ScmItemStatus.REMOVED);
                 }
+            } else if (ScmItemStatus.CONFLICT_ADDED_BY_US.equals(item.getAttribute().getSubstatus())
+                    || ScmItemStatus.CONFLICT_ADDED_BY_THEM.equals(item.getAttribute().getSubstatus())
+                    || ScmItemStatus.CONFLICT_BOTH_ADDED.equals(item.getAttribute().getSubstatus())
+                    || ScmItemStatus.CONFLICT_BOTH_MODIFIED.equals(item.getAttribute().getSubstatus())) {
+                batch.add(item.getShortName());
+                item.getAttribute().getStatus().remove(ScmItemStatus.CONFLICT);
+                item.getAttribute().getStatus().add(ScmItemStatus.CHANGED);
+                item.getAttribute().getStatus().add(ScmItemStatus.UNCOMMITED);
             }
-        } catch (Exception e) {
-            GitemberApp.showException("Cannot add item " + item.getShortName() + " to stage", e);
         }
     }
 
@@ -775,6 +936,7 @@ public class WorkingCopyController implements Initializable {
             final WorkingCopyController workingCopyController = fxmlLoader.getController();
             workingCopyController.onStashCreated = onStashCreated;
             workingCopyController.open(branch, null);
+            workingCopyController.watch();
 
             menuBar.getMenus().add(2, workingCopyController.workingCopyMenu);
 
@@ -33,6 +33,11 @@ public interface Const {
     String PROP_FOLDER = ".gitember";
     String PROP_FILE_NAME = "gitember.json";
 
+    /**
+     * Folder for repository caches inside .git folder.
+     */
+    String CACHE_FOLDER = "gitember";
+
 
     String REMOTE_PREFIX = Constants.R_REMOTES  + Constants.DEFAULT_REMOTE_NAME +  '/';
 
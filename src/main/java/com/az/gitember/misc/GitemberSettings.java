@@ -22,6 +22,11 @@ public class GitemberSettings implements Serializable {
     private String lastLoginName;
     private String lastGitFolder;
 
+    /**
+     * Larger text files are not blamed by statistic report.
+     */
+    private long maxBlameFileSize = 4 * 1024 * 1024;
+
     @JsonDeserialize(as=TreeSet.class)
     private TreeSet<String> commitMessages = new TreeSet<>();
 
@@ -44,6 +49,14 @@ public class GitemberSettings implements Serializable {
         this.lastGitFolder = lastGitFolder;
     }
 
+    public long getMaxBlameFileSize() {
+        return maxBlameFileSize;
+    }
+
+    public void setMaxBlameFileSize(long maxBlameFileSize) {
+        this.maxBlameFileSize = maxBlameFileSize;
+    }
+
     public TreeSet<String> getCommitMessages() {
         return commitMessages;
     }
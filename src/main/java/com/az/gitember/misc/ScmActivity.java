@@ -0,0 +1,139 @@
+package com.az.gitember.misc;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Commits and changed files by author, week and top level directory. Only not empty cells are kept,
+ * each cell is spread over parallel arrays, so any slice is counted by single pass over cells.
+ * Weeks are ISO weeks, which start on Monday.
+ */
+public class ScmActivity {
+
+    /**
+     * Directory of cells, which count the whole commit regardless of directory.
+     */
+    public static final int ALL = -1;
+
+    private static final int WEEK = 7 * 24 * 60 * 60;
+
+    /**
+     * 1970-01-01 is Thursday, so week starts 3 days before the epoch.
+     */
+    private static final int MONDAY_OFFSET = 3 * 24 * 60 * 60;
+
+    private final List<String> authors;
+    private final List<String> directories;
+    private final int firstWeek;
+    private final int weekCount;
+    private final int[] cellAuthor;
+    private final int[] cellWeek;
+    private final int[] cellDirectory;
+    private final int[] cellCommits;
+    private final int[] cellFiles;
+
+    /**
+     * @param authors       authors
+     * @param directories   top level directories, files in root directory are counted as "/"
+     * @param cellAuthor    author of each cell
+     * @param cellWeek      week of each cell
+     * @param cellDirectory directory of each cell or {@link #ALL}
+     * @param cellCommits   commits of each cell
+     * @param cellFiles     changed files of each cell
+     */
+    public ScmActivity(List<String> authors, List<String> directories,
+                       int[] cellAuthor, int[] cellWeek, int[] cellDirectory, int[] cellCommits, int[] cellFiles) {
+        this.authors = authors;
+        this.directories = directories;
+        this.cellAuthor = cellAuthor;
+        this.cellWeek = cellWeek;
+        this.cellDirectory = cellDirectory;
+        this.cellCommits = cellCommits;
+        this.cellFiles = cellFiles;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int week : cellWeek) {
+            min = Math.min(min, week);
+            max = Math.max(max, week);
+        }
+        this.firstWeek = cellWeek.length == 0 ? 0 : min;
+        this.weekCount = cellWeek.length == 0 ? 0 : max - min + 1;
+    }
+
+    /**
+     * @param time seconds since epoch
+     * @return week of given time
+     */
+    public static int toWeek(int time) {
+        return Math.floorDiv(time + MONDAY_OFFSET, WEEK);
+    }
+
+    /**
+     * @param week week from {@link #toWeek(int)}
+     * @return monday of week
+     */
+    public static Date toDate(int week) {
+        return GitemberUtil.intToDate(week * WEEK - MONDAY_OFFSET);
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    public List<String> getDirectories() {
+        return directories;
+    }
+
+    public int getWeekCount() {
+        return weekCount;
+    }
+
+    /**
+     * @param week week from 0 to {@link #getWeekCount()}
+     * @return monday of week
+     */
+    public Date getWeekDate(int week) {
+        return toDate(firstWeek + week);
+    }
+
+    /**
+     * @param directory directory index or {@link #ALL}
+     * @return commits by author and week
+     */
+    public int[][] getCommitsByAuthor(int directory) {
+        final int[][] rez = new int[authors.size()][weekCount];
+        for (int i = 0; i < cellWeek.length; i++) {
+            if (cellDirectory[i] == directory) {
+                rez[cellAuthor[i]][cellWeek[i] - firstWeek] += cellCommits[i];
+            }
+        }
+        return rez;
+    }
+
+    /**
+     * @param author author index or {@link #ALL}
+     * @return changed files by directory and week
+     */
+    public int[][] getFilesByDirectory(int author) {
+        final int[][] rez = new int[directories.size()][weekCount];
+        for (int i = 0; i < cellWeek.length; i++) {
+            if (cellDirectory[i] != ALL && (author == ALL || cellAuthor[i] == author)) {
+                rez[cellDirectory[i]][cellWeek[i] - firstWeek] += cellFiles[i];
+            }
+        }
+        return rez;
+    }
+
+    /**
+     * @return commits per author in all directories
+     */
+    public int[] getCommitsPerAuthor() {
+        final int[] rez = new int[authors.size()];
+        for (int i = 0; i < cellWeek.length; i++) {
+            if (cellDirectory[i] == ALL) {
+                rez[cellAuthor[i]] += cellCommits[i];
+            }
+        }
+        return rez;
+    }
+}
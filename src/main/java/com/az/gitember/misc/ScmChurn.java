@@ -0,0 +1,39 @@
+package com.az.gitember.misc;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Lines added and deleted by history of commits. Each value is pair of added and deleted lines.
+ */
+public class ScmChurn {
+
+    private final Map<String, Pair<Long, Long>> byAuthor;
+    private final Map<String, Pair<Long, Long>> byFolder;
+    private final Map<Date, Pair<Long, Long>> byWeek;
+
+    /**
+     * @param byAuthor added and deleted lines per author
+     * @param byFolder added and deleted lines per folder
+     * @param byWeek   added and deleted lines per week, sorted by week
+     */
+    public ScmChurn(Map<String, Pair<Long, Long>> byAuthor,
+                    Map<String, Pair<Long, Long>> byFolder,
+                    Map<Date, Pair<Long, Long>> byWeek) {
+        this.byAuthor = byAuthor;
+        this.byFolder = byFolder;
+        this.byWeek = byWeek;
+    }
+
+    public Map<String, Pair<Long, Long>> getByAuthor() {
+        return byAuthor;
+    }
+
+    public Map<String, Pair<Long, Long>> getByFolder() {
+        return byFolder;
+    }
+
+    public Map<Date, Pair<Long, Long>> getByWeek() {
+        return byWeek;
+    }
+}
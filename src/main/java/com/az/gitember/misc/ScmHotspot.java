@@ -0,0 +1,57 @@
+package com.az.gitember.misc;
+
+import java.util.Date;
+
+/**
+ * File, which is changed often. Score is amount of changes multiplied by current amount of lines,
+ * so large file, which is changed again and again, goes first.
+ */
+public class ScmHotspot {
+
+    private final String path;
+    private final int changes;
+    private final int authors;
+    private final Date lastChange;
+    private final int lines;
+
+    public ScmHotspot(String path, int changes, int authors, Date lastChange, int lines) {
+        this.path = path;
+        this.changes = changes;
+        this.authors = authors;
+        this.lastChange = lastChange;
+        this.lines = lines;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return amount of commits, which changed file
+     */
+    public int getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return amount of distinct authors of changes
+     */
+    public int getAuthors() {
+        return authors;
+    }
+
+    public Date getLastChange() {
+        return lastChange;
+    }
+
+    /**
+     * @return amount of lines in HEAD
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    public long getScore() {
+        return (long) changes * lines;
+    }
+}
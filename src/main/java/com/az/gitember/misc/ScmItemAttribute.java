@@ -1,5 +1,6 @@
 package com.az.gitember.misc;
 
+import java.util.AbstractList;
 import java.util.List;
 
 /**
@@ -12,23 +13,45 @@ public class ScmItemAttribute {
 
     private String name;
     private String oldName;
-    private List<String> status;
-    private String substatus;
 
+    /**
+     * Statuses and conflict sub status are kept in statuses[slot], see {@link ScmItemStatusMask}.
+     * Items of {@link ScmStatusTable} share its array.
+     */
+    private final int[] statuses;
+
+    private final int slot;
+
+    private final List<String> statusView = new StatusView();
+
+    /**
+     * @param status    statuses from {@link ScmItemStatus}
+     * @param substatus conflict sub status or null
+     * @throws IllegalArgumentException if status is unknown
+     */
     public ScmItemAttribute(List<String> status, String substatus) {
-        this.status = status;
-        this.substatus = substatus;
+        this(ScmItemStatusMask.withSubstatus(ScmItemStatusMask.of(status), substatus));
+    }
+
+    public ScmItemAttribute(int status) {
+        this(new int[]{status}, 0);
     }
 
     public ScmItemAttribute() {
+        this(0);
+    }
+
+    ScmItemAttribute(int[] statuses, int slot) {
+        this.statuses = statuses;
+        this.slot = slot;
     }
 
     public String getSubstatus() {
-        return substatus;
+        return ScmItemStatusMask.getSubstatus(statuses[slot]);
     }
 
     public void setSubstatus(String substatus) {
-        this.substatus = substatus;
+        statuses[slot] = ScmItemStatusMask.withSubstatus(statuses[slot], substatus);
     }
 
     public String getName() {
@@ -47,12 +70,48 @@ public class ScmItemAttribute {
         return oldName;
     }
 
+    /**
+     * @return modifiable view of status bits, each status is present once. Only statuses from
+     * {@link ScmItemStatus} can be added, other strings are rejected with IllegalArgumentException
+     */
     public List<String> getStatus() {
-        return status;
+        return statusView;
     }
 
+    /**
+     * @param status statuses from {@link ScmItemStatus}
+     * @throws IllegalArgumentException if status is unknown
+     */
     public void setStatus(List<String> status) {
-        this.status = status;
+        statuses[slot] = (statuses[slot] & ~ScmItemStatusMask.STATUS_BITS) | ScmItemStatusMask.of(status);
+    }
+
+    public int getStatusMask() {
+        return statuses[slot];
+    }
+
+    /**
+     * @param bits status bits from {@link ScmItemStatusMask}
+     * @return true if at least one of given statuses is set
+     */
+    public boolean hasAnyStatus(int bits) {
+        return (statuses[slot] & bits) != 0;
+    }
+
+    /**
+     * @param bits status bits from {@link ScmItemStatusMask}
+     * @return true if all given statuses are set
+     */
+    public boolean hasAllStatuses(int bits) {
+        return (statuses[slot] & bits) == bits;
+    }
+
+    /**
+     * @param bits status bits from {@link ScmItemStatusMask}
+     * @return true if exactly given statuses are set
+     */
+    public boolean hasOnlyStatuses(int bits) {
+        return (statuses[slot] & ScmItemStatusMask.STATUS_BITS) == bits;
     }
 
     @Override
@@ -62,4 +121,50 @@ public class ScmItemAttribute {
                 ", oldName='" + oldName + '\'' +
                 '}';
     }
+
+    /**
+     * Status names over status bits.
+     */
+    private class StatusView extends AbstractList<String> {
+
+        @Override
+        public String get(int index) {
+            return ScmItemStatusMask.get(statuses[slot], index);
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(statuses[slot] & ScmItemStatusMask.STATUS_BITS);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return hasAnyStatus(ScmItemStatusMask.find(o));
+        }
+
+        @Override
+        public void add(int index, String element) {
+            statuses[slot] |= ScmItemStatusMask.of(element);
+        }
+
+        @Override
+        public String remove(int index) {
+            final String rez = get(index);
+            statuses[slot] &= ~ScmItemStatusMask.of(rez);
+            return rez;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            final int bit = ScmItemStatusMask.find(o);
+            final boolean rez = hasAnyStatus(bit);
+            statuses[slot] &= ~bit;
+            return rez;
+        }
+
+        @Override
+        public void clear() {
+            statuses[slot] &= ~ScmItemStatusMask.STATUS_BITS;
+        }
+    }
 }
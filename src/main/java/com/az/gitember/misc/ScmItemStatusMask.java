@@ -0,0 +1,132 @@
+package com.az.gitember.misc;
+
+import java.util.Collection;
+
+/**
+ * Status of working copy item packed into int. Low bits are statuses from {@link ScmItemStatus},
+ * conflict sub status is kept as small number in spare bits above them.
+ */
+public final class ScmItemStatusMask {
+
+    public static final int CONFLICT = 1;
+    public static final int ADDED = 1 << 1;
+    public static final int CHANGED = 1 << 2;
+    public static final int MISSED = 1 << 3;
+    public static final int MODIFIED = 1 << 4;
+    public static final int REMOVED = 1 << 5;
+    public static final int UNCOMMITED = 1 << 6;
+    public static final int UNTRACKED = 1 << 7;
+    public static final int UNTRACKED_FOLDER = 1 << 8;
+
+    /**
+     * All status bits, without conflict sub status.
+     */
+    public static final int STATUS_BITS = (1 << 9) - 1;
+
+    private static final int SUBSTATUS_SHIFT = 12;
+
+    private static final int SUBSTATUS_BITS = 0x7 << SUBSTATUS_SHIFT;
+
+    /**
+     * Status names in order of bits.
+     */
+    private static final String[] STATUSES = {
+            ScmItemStatus.CONFLICT,
+            ScmItemStatus.ADDED,
+            ScmItemStatus.CHANGED,
+            ScmItemStatus.MISSED,
+            ScmItemStatus.MODIFIED,
+            ScmItemStatus.REMOVED,
+            ScmItemStatus.UNCOMMITED,
+            ScmItemStatus.UNTRACKED,
+            ScmItemStatus.UNTRACKED_FOLDER
+    };
+
+    /**
+     * Conflict sub statuses, index is value of sub status bits, 0 means no sub status.
+     */
+    private static final String[] SUBSTATUSES = {
+            null,
+            ScmItemStatus.CONFLICT_BOTH_DELETED,
+            ScmItemStatus.CONFLICT_DELETED_BY_US,
+            ScmItemStatus.CONFLICT_DELETED_BY_THEM,
+            ScmItemStatus.CONFLICT_ADDED_BY_US,
+            ScmItemStatus.CONFLICT_ADDED_BY_THEM,
+            ScmItemStatus.CONFLICT_BOTH_ADDED,
+            ScmItemStatus.CONFLICT_BOTH_MODIFIED
+    };
+
+    private ScmItemStatusMask() {
+    }
+
+    /**
+     * @param status one of {@link ScmItemStatus} statuses
+     * @return bit of status
+     * @throws IllegalArgumentException if status is unknown
+     */
+    public static int of(final String status) {
+        final int rez = find(status);
+        if (rez == 0) {
+            throw new IllegalArgumentException("Unknown status " + status);
+        }
+        return rez;
+    }
+
+    /**
+     * @return bit of status or 0 if status is unknown
+     */
+    static int find(final Object status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    public static int of(final Collection<String> statuses) {
+        int rez = 0;
+        for (String status : statuses) {
+            rez |= of(status);
+        }
+        return rez;
+    }
+
+    /**
+     * @return name of n-th set status bit
+     */
+    static String get(final int mask, final int index) {
+        int bits = mask & STATUS_BITS;
+        for (int i = 0; i < index; i++) {
+            bits &= bits - 1;
+        }
+        if (bits == 0) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return STATUSES[Integer.numberOfTrailingZeros(bits)];
+    }
+
+    /**
+     * @return conflict sub status or null
+     */
+    public static String getSubstatus(final int mask) {
+        return SUBSTATUSES[(mask & SUBSTATUS_BITS) >>> SUBSTATUS_SHIFT];
+    }
+
+    /**
+     * @param mask      status
+     * @param substatus one of conflict sub statuses from {@link ScmItemStatus} or null
+     * @return status with replaced sub status
+     */
+    public static int withSubstatus(final int mask, final String substatus) {
+        int value = 0;
+        for (int i = 1; i < SUBSTATUSES.length && substatus != null; i++) {
+            if (SUBSTATUSES[i].equals(substatus)) {
+                value = i;
+                break;
+            }
+        }
+        return (mask & ~SUBSTATUS_BITS) | (value << SUBSTATUS_SHIFT);
+    }
+
+}
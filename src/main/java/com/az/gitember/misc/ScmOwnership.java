@@ -0,0 +1,42 @@
+package com.az.gitember.misc;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Code ownership over time. For each period it keeps amount of lines per author, which were
+ * last changed by author in the commit at the beginning of period.
+ */
+public class ScmOwnership {
+
+    private final int[] periodTimes;
+    private final List<String> authors;
+    private final int[][] lines;
+
+    /**
+     * @param periodTimes start of each period, seconds
+     * @param authors     authors
+     * @param lines       lines by period and author
+     */
+    public ScmOwnership(int[] periodTimes, List<String> authors, int[][] lines) {
+        this.periodTimes = periodTimes;
+        this.authors = authors;
+        this.lines = lines;
+    }
+
+    public int getPeriodCount() {
+        return periodTimes.length;
+    }
+
+    public Date getPeriodDate(int period) {
+        return GitemberUtil.intToDate(periodTimes[period]);
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    public int getLines(int period, int author) {
+        return lines[period][author];
+    }
+}
@@ -2,6 +2,9 @@ package com.az.gitember.misc;
 
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Created by Igor_Azarny on 03 - Dec - 2016
@@ -15,6 +18,7 @@ public class ScmRevisionInformation {
     private String fullMessage;
     private Date date;
     private List<ScmItem> affectedItems;
+    private Supplier<List<ScmItem>> affectedItemsSupplier;
     private List<String> ref;
 
     private List<String> parents;
@@ -87,12 +91,44 @@ public class ScmRevisionInformation {
         this.date = date;
     }
 
-    public List<ScmItem> getAffectedItems() {
+    /**
+     * Get affected items. Items, which are set via supplier, are computed on first call.
+     * @return list of changed items
+     */
+    public synchronized List<ScmItem> getAffectedItems() {
+        if (affectedItems == null && affectedItemsSupplier != null) {
+            affectedItems = affectedItemsSupplier.get();
+            affectedItemsSupplier = null;
+        }
         return affectedItems;
     }
 
-    public void setAffectedItems(List<ScmItem> affectedItems) {
+    /**
+     * Get affected items without blocking of caller.
+     * @param executor executor to compute not yet computed items
+     * @return future of changed items
+     */
+    public CompletableFuture<List<ScmItem>> getAffectedItemsAsync(Executor executor) {
+        synchronized (this) {
+            if (affectedItemsSupplier == null) {
+                return CompletableFuture.completedFuture(affectedItems);
+            }
+        }
+        return CompletableFuture.supplyAsync(this::getAffectedItems, executor);
+    }
+
+    public synchronized void setAffectedItems(List<ScmItem> affectedItems) {
         this.affectedItems = affectedItems;
+        this.affectedItemsSupplier = null;
+    }
+
+    /**
+     * Set affected items, which will be computed on demand.
+     * @param affectedItemsSupplier changed items supplier
+     */
+    public synchronized void setAffectedItems(Supplier<List<ScmItem>> affectedItemsSupplier) {
+        this.affectedItems = null;
+        this.affectedItemsSupplier = affectedItemsSupplier;
     }
 
     @Override
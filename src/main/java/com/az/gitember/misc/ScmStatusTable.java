@@ -0,0 +1,104 @@
+package com.az.gitember.misc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Statuses of working copy as parallel arrays of paths, sorted by path, and packed statuses,
+ * see {@link ScmItemStatusMask}. Items are created on first access and read and change
+ * their status in array of table, so large status does not need boxed status per path.
+ */
+public class ScmStatusTable extends AbstractList<ScmItem> implements RandomAccess {
+
+    private final String[] paths;
+
+    private final int[] statuses;
+
+    private final ScmItem[] items;
+
+    /**
+     * Create table without statuses.
+     *
+     * @param pathSets paths of table, same path can be present in several sets
+     */
+    public ScmStatusTable(final Collection<? extends Collection<String>> pathSets) {
+        int size = 0;
+        for (Collection<String> pathSet : pathSets) {
+            size += pathSet.size();
+        }
+        final String[] all = new String[size];
+        int pos = 0;
+        for (Collection<String> pathSet : pathSets) {
+            for (String path : pathSet) {
+                all[pos++] = path;
+            }
+        }
+        Arrays.sort(all);
+        int unique = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (unique == 0 || !all[unique - 1].equals(all[i])) {
+                all[unique++] = all[i];
+            }
+        }
+        this.paths = Arrays.copyOf(all, unique);
+        this.statuses = new int[unique];
+        this.items = new ScmItem[unique];
+    }
+
+    /**
+     * @param paths paths of table
+     * @param bits  status bits from {@link ScmItemStatusMask} to set for given paths
+     */
+    public void addStatus(final Collection<String> paths, final int bits) {
+        for (String path : paths) {
+            final int index = find(path);
+            if (index >= 0) {
+                statuses[index] |= bits;
+            }
+        }
+    }
+
+    /**
+     * @param path      path of table
+     * @param substatus conflict sub status from {@link ScmItemStatus} or null
+     */
+    public void setSubstatus(final String path, final String substatus) {
+        final int index = find(path);
+        if (index >= 0) {
+            statuses[index] = ScmItemStatusMask.withSubstatus(statuses[index], substatus);
+        }
+    }
+
+    /**
+     * @return index of path or negative value if path has no changes
+     */
+    public int find(final String path) {
+        return Arrays.binarySearch(paths, path);
+    }
+
+    public String getPath(final int index) {
+        return paths[index];
+    }
+
+    public int getStatus(final int index) {
+        return statuses[index];
+    }
+
+    @Override
+    public ScmItem get(final int index) {
+        ScmItem rez = items[index];
+        if (rez == null) {
+            rez = new ScmItem(paths[index], new ScmItemAttribute(statuses, index));
+            items[index] = rez;
+        }
+        return rez;
+    }
+
+    @Override
+    public int size() {
+        return paths.length;
+    }
+
+}
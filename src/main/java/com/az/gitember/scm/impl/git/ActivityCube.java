@@ -0,0 +1,357 @@
+package com.az.gitember.scm.impl.git;
+
+import com.az.gitember.misc.ScmActivity;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Commits and changed files by author, week and top level directory of all commits in commit graph.
+ * Each commit is compared with its first parent, changed files of merge commits are not counted,
+ * because they were counted for merged commits already.
+ *
+ * Graph only grows at the end, so cube remembers amount of counted rows and counts only new rows.
+ * Cube is stored under .git/gitember folder.
+ */
+public class ActivityCube {
+
+    private final static Logger log = Logger.getLogger(ActivityCube.class.getName());
+
+    static final String FILE_NAME = "activity-cube";
+
+    private static final int MAGIC = 0x47454143;
+
+    private static final int VERSION = 1;
+
+    private static final int RANGE_SIZE = 1024;
+
+    /**
+     * Cells in open addressing table. Key is author, week and directory packed into long.
+     */
+    private static class Cells {
+
+        private static final long EMPTY = -1;
+
+        long[] keys = new long[1024];
+
+        int[] commits = new int[1024];
+
+        int[] files = new int[1024];
+
+        int size = 0;
+
+        Cells() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void add(final long key, final int commitCnt, final int fileCnt) {
+            int slot = slot(key, keys.length);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            commits[slot] += commitCnt;
+            files[slot] += fileCnt;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        void addAll(final Cells other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != EMPTY) {
+                    add(other.keys[i], other.commits[i], other.files[i]);
+                }
+            }
+        }
+
+        private void rehash() {
+            final long[] oldKeys = keys;
+            final int[] oldCommits = commits;
+            final int[] oldFiles = files;
+            keys = new long[oldKeys.length * 2];
+            commits = new int[keys.length];
+            files = new int[keys.length];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slot(oldKeys[i], keys.length);
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    keys[slot] = oldKeys[i];
+                    commits[slot] = oldCommits[i];
+                    files[slot] = oldFiles[i];
+                }
+            }
+        }
+
+        private static int slot(final long key, final int length) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & (length - 1);
+        }
+
+        static long key(final int author, final int week, final int directory) {
+            return (long) author << 40 | (long) (week & 0xFFFFF) << 20 | (directory + 1);
+        }
+
+        static int author(final long key) {
+            return (int) (key >>> 40);
+        }
+
+        static int week(final long key) {
+            // weeks before epoch are negative
+            return (int) (key >>> 20 & 0xFFFFF) << 12 >> 12;
+        }
+
+        static int directory(final long key) {
+            return (int) (key & 0xFFFFF) - 1;
+        }
+    }
+
+    private final File file;
+
+    private Cells cells;
+
+    private List<String> directories;
+
+    private Map<String, Integer> directoryIdx;
+
+    /**
+     * Amount of graph rows, which are counted.
+     */
+    private int rows;
+
+    /**
+     * Commit of the last counted row, to check that graph was not rebuilt.
+     */
+    private ObjectId lastId;
+
+    public ActivityCube(final File folder) {
+        this.file = new File(folder, FILE_NAME);
+    }
+
+    /**
+     * Count commits of graph, which were not counted yet.
+     *
+     * @param repository      repository
+     * @param graph           commit graph
+     * @param threads         amount of workers
+     * @param progressMonitor progress monitor, counted rows are dropped if it is cancelled
+     * @return all counted activity
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    public synchronized ScmActivity update(final Repository repository,
+                                           final CommitGraph graph,
+                                           final int threads,
+                                           final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        if (cells == null) {
+            load();
+        }
+        if (rows > graph.size() || (rows > 0 && !graph.getId(rows - 1).equals(lastId))) {
+            log.log(Level.INFO, "Commit graph was rebuilt, activity cube will be rebuilt too");
+            reset();
+        }
+        if (rows < graph.size()) {
+            final long start = System.currentTimeMillis();
+            final Cells added = count(repository, graph, rows, graph.size(), Math.max(1, threads), progressMonitor);
+            if (progressMonitor.isCancelled()) {
+                return toActivity(graph);
+            }
+            cells.addAll(added);
+            log.log(Level.INFO, "Activity of " + (graph.size() - rows) + " commits counted in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            rows = graph.size();
+            lastId = graph.getId(rows - 1);
+            store();
+        }
+        return toActivity(graph);
+    }
+
+    private Cells count(final Repository repository,
+                        final CommitGraph graph,
+                        final int from,
+                        final int to,
+                        final int threads,
+                        final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final Cells rez = new Cells();
+        final RangeExecutor executor = new RangeExecutor("activity", threads, RANGE_SIZE);
+        executor.run(
+                "Activity",
+                from,
+                to,
+                (rangeFrom, rangeTo) -> countRange(repository, graph, rangeFrom, rangeTo, executor),
+                rez::addAll,
+                progressMonitor);
+        return rez;
+    }
+
+    private Cells countRange(final Repository repository,
+                             final CommitGraph graph,
+                             final int from,
+                             final int to,
+                             final RangeExecutor executor) throws IOException {
+        final Cells rez = new Cells();
+        final Map<String, Integer> fileCnt = new HashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (int row = from; row < to && !executor.isCancelled(); row++) {
+                final int author = graph.getAuthorIndex(row);
+                final int week = ScmActivity.toWeek(graph.getCommitTime(row));
+                fileCnt.clear();
+                if (graph.getParentCount(row) < 2) {
+                    treeWalk.reset();
+                    if (graph.getParentCount(row) == 0) {
+                        treeWalk.addTree(new EmptyTreeIterator());
+                    } else {
+                        treeWalk.addTree(graph.getTreeId(graph.getParent(row, 0)));
+                    }
+                    treeWalk.addTree(graph.getTreeId(row));
+                    while (treeWalk.next()) {
+                        final String path = treeWalk.getPathString();
+                        final int slash = path.indexOf('/');
+                        fileCnt.merge(slash < 0 ? "/" : path.substring(0, slash), 1, Integer::sum);
+                    }
+                }
+                int total = 0;
+                for (Map.Entry<String, Integer> entry : fileCnt.entrySet()) {
+                    rez.add(Cells.key(author, week, getDirectoryIdx(entry.getKey())), 1, entry.getValue());
+                    total += entry.getValue();
+                }
+                rez.add(Cells.key(author, week, ScmActivity.ALL), 1, total);
+            }
+        }
+        return rez;
+    }
+
+    /**
+     * Called by workers, while cube itself is locked by the caller thread.
+     */
+    private int getDirectoryIdx(final String directory) {
+        synchronized (directoryIdx) {
+            Integer idx = directoryIdx.get(directory);
+            if (idx == null) {
+                idx = directories.size();
+                directories.add(directory);
+                directoryIdx.put(directory, idx);
+            }
+            return idx;
+        }
+    }
+
+    private ScmActivity toActivity(final CommitGraph graph) {
+        final int[] cellAuthor = new int[cells.size];
+        final int[] cellWeek = new int[cells.size];
+        final int[] cellDirectory = new int[cells.size];
+        final int[] cellCommits = new int[cells.size];
+        final int[] cellFiles = new int[cells.size];
+        int idx = 0;
+        for (int i = 0; i < cells.keys.length; i++) {
+            if (cells.keys[i] != Cells.EMPTY) {
+                cellAuthor[idx] = Cells.author(cells.keys[i]);
+                cellWeek[idx] = Cells.week(cells.keys[i]);
+                cellDirectory[idx] = Cells.directory(cells.keys[i]);
+                cellCommits[idx] = cells.commits[i];
+                cellFiles[idx] = cells.files[i];
+                idx++;
+            }
+        }
+        return new ScmActivity(
+                Arrays.asList(graph.getAuthors().clone()),
+                new ArrayList<>(directories),
+                cellAuthor, cellWeek, cellDirectory, cellCommits, cellFiles);
+    }
+
+    private void reset() {
+        cells = new Cells();
+        directories = new ArrayList<>();
+        directoryIdx = new HashMap<>();
+        rows = 0;
+        lastId = null;
+    }
+
+    private void load() {
+        reset();
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported format");
+            }
+            final int rowCount = in.readInt();
+            final byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+            in.readFully(id);
+            final int directoryCount = in.readInt();
+            for (int i = 0; i < directoryCount; i++) {
+                getDirectoryIdx(in.readUTF());
+            }
+            final int cellCount = in.readInt();
+            for (int i = 0; i < cellCount; i++) {
+                cells.add(in.readLong(), in.readInt(), in.readInt());
+            }
+            rows = rowCount;
+            lastId = ObjectId.fromRaw(id);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Cannot read activity cube " + file + ", it will be rebuilt", e);
+            reset();
+        }
+    }
+
+    private void store() {
+        final Path tmp = new File(file.getParentFile(), FILE_NAME + ".tmp").toPath();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(rows);
+                final byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+                lastId.copyRawTo(id, 0);
+                out.write(id);
+                out.writeInt(directories.size());
+                for (String directory : directories) {
+                    out.writeUTF(directory);
+                }
+                out.writeInt(cells.size);
+                for (int i = 0; i < cells.keys.length; i++) {
+                    if (cells.keys[i] != Cells.EMPTY) {
+                        out.writeLong(cells.keys[i]);
+                        out.writeInt(cells.commits[i]);
+                        out.writeInt(cells.files[i]);
+                    }
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot store activity cube " + file, e);
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.util.RawParseUtils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interned author names, which are read directly from raw commit buffer. Name bytes are looked up
+ * in open addressing table by hash, so known author costs neither string nor person ident.
+ * Name is decoded only once for new bytes, the same name with other bytes gets the same index.
+ */
+class AuthorTable {
+
+    private static final int EMPTY = -1;
+
+    private final Map<String, Integer> indexByName = new HashMap<>();
+
+    private String[] names = new String[16];
+
+    private int size = 0;
+
+    /**
+     * Author index of slot or {@link #EMPTY}.
+     */
+    private int[] slots = new int[64];
+
+    private byte[][] slotBytes = new byte[64][];
+
+    private int usedSlots = 0;
+
+    AuthorTable() {
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * @param authors initial authors, they get indexes in the given order
+     */
+    AuthorTable(final String[] authors) {
+        this();
+        for (String author : authors) {
+            add(author);
+        }
+    }
+
+    /**
+     * @param raw raw commit buffer
+     * @return index of commit author
+     */
+    int intern(final byte[] raw) {
+        final int nameB = RawParseUtils.author(raw, 0);
+        if (nameB < 0) {
+            return add("");
+        }
+        final int emailB = RawParseUtils.nextLF(raw, nameB, '<');
+        if (emailB >= raw.length || raw[emailB - 1] != '<') {
+            return add("");
+        }
+        // the same way as person ident is parsed, single space before email is not part of name
+        final int nameE = emailB - 2 >= nameB && raw[emailB - 2] == ' ' ? emailB - 2 : emailB - 1;
+
+        int slot = hash(raw, nameB, nameE) & (slots.length - 1);
+        while (slots[slot] != EMPTY) {
+            if (equals(slotBytes[slot], raw, nameB, nameE)) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        final int idx = add(RawParseUtils.decode(getEncoding(raw), raw, nameB, nameE));
+        slots[slot] = idx;
+        slotBytes[slot] = Arrays.copyOfRange(raw, nameB, nameE);
+        if (++usedSlots * 2 > slots.length) {
+            rehash();
+        }
+        return idx;
+    }
+
+    String get(final int idx) {
+        return names[idx];
+    }
+
+    int size() {
+        return size;
+    }
+
+    List<String> getNames() {
+        return Arrays.asList(Arrays.copyOf(names, size));
+    }
+
+    private int add(final String name) {
+        Integer idx = indexByName.get(name);
+        if (idx == null) {
+            idx = size;
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size++] = name;
+            indexByName.put(name, idx);
+        }
+        return idx;
+    }
+
+    private void rehash() {
+        final int[] oldSlots = slots;
+        final byte[][] oldBytes = slotBytes;
+        slots = new int[oldSlots.length * 2];
+        slotBytes = new byte[oldSlots.length * 2][];
+        Arrays.fill(slots, EMPTY);
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                final byte[] bytes = oldBytes[i];
+                int slot = hash(bytes, 0, bytes.length) & (slots.length - 1);
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                slots[slot] = oldSlots[i];
+                slotBytes[slot] = bytes;
+            }
+        }
+    }
+
+    private static int hash(final byte[] bytes, final int from, final int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static Charset getEncoding(final byte[] raw) {
+        try {
+            return RawParseUtils.parseEncoding(raw);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static boolean equals(final byte[] bytes, final byte[] raw, final int from, final int to) {
+        if (bytes.length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != raw[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Amount of lines per author of last change for each file, which was blamed for statistic report.
+ * Counts are kept together with blob id of file, so they are reused while file content is not changed,
+ * and stored under .git/gitember folder together with commit, at which they were computed.
+ */
+public class BlameStatCache {
+
+    private final static Logger log = Logger.getLogger(BlameStatCache.class.getName());
+
+    static final String FILE_NAME = "blame-stats";
+
+    private static final int MAGIC = 0x47454253;
+
+    private static final int VERSION = 1;
+
+    private static class Entry {
+
+        final ObjectId blobId;
+
+        final String[] authors;
+
+        final int[] lines;
+
+        Entry(final ObjectId blobId, final String[] authors, final int[] lines) {
+            this.blobId = blobId;
+            this.authors = authors;
+            this.lines = lines;
+        }
+    }
+
+    private final File file;
+
+    private Map<String, Entry> entries;
+
+    private ObjectId commitId;
+
+    private boolean dirty = false;
+
+    public BlameStatCache(final File folder) {
+        this.file = new File(folder, FILE_NAME);
+    }
+
+    /**
+     * @param path   file path
+     * @param blobId blob of file
+     * @return lines per author or null, if file with such content was not blamed yet
+     */
+    public synchronized Map<String, Integer> get(final String path, final AnyObjectId blobId) {
+        final Entry entry = getEntries().get(path);
+        if (entry == null || !entry.blobId.equals(blobId)) {
+            return null;
+        }
+        final Map<String, Integer> rez = new HashMap<>();
+        for (int i = 0; i < entry.authors.length; i++) {
+            rez.put(entry.authors[i], entry.lines[i]);
+        }
+        return rez;
+    }
+
+    /**
+     * @param path   file path
+     * @param blobId blob of file
+     * @param lines  lines per author
+     */
+    public synchronized void put(final String path, final AnyObjectId blobId, final Map<String, Integer> lines) {
+        final String[] authors = new String[lines.size()];
+        final int[] counts = new int[lines.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : lines.entrySet()) {
+            authors[i] = entry.getKey();
+            counts[i++] = entry.getValue();
+        }
+        getEntries().put(path, new Entry(blobId.copy(), authors, counts));
+        dirty = true;
+    }
+
+    /**
+     * Forget files, which are not in the tree any more.
+     *
+     * @param paths files of tree
+     */
+    public synchronized void retain(final Collection<String> paths) {
+        if (getEntries().keySet().retainAll(paths)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * @return commit, at which counts were computed last time, or null
+     */
+    public synchronized ObjectId getCommitId() {
+        getEntries();
+        return commitId;
+    }
+
+    public synchronized void setCommitId(final AnyObjectId commitId) {
+        getEntries();
+        if (!commitId.equals(this.commitId)) {
+            this.commitId = commitId.copy();
+            dirty = true;
+        }
+    }
+
+    private Map<String, Entry> getEntries() {
+        if (entries == null) {
+            entries = load();
+        }
+        return entries;
+    }
+
+    private Map<String, Entry> load() {
+        final Map<String, Entry> rez = new LinkedHashMap<>();
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Unsupported format");
+                }
+                final byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+                in.readFully(id);
+                commitId = ObjectId.fromRaw(id);
+                final String[] authors = new String[in.readInt()];
+                for (int i = 0; i < authors.length; i++) {
+                    authors[i] = in.readUTF();
+                }
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    final String path = in.readUTF();
+                    in.readFully(id);
+                    final String[] fileAuthors = new String[in.readInt()];
+                    final int[] lines = new int[fileAuthors.length];
+                    for (int j = 0; j < fileAuthors.length; j++) {
+                        fileAuthors[j] = authors[in.readInt()];
+                        lines[j] = in.readInt();
+                    }
+                    rez.put(path, new Entry(ObjectId.fromRaw(id), fileAuthors, lines));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Cannot read blame statistic " + file + ", it will be rebuilt", e);
+                rez.clear();
+                commitId = null;
+            }
+        }
+        return rez;
+    }
+
+    /**
+     * Write counts to the file, if they were changed.
+     */
+    public synchronized void store() {
+        if (!dirty || commitId == null) {
+            return;
+        }
+        final Map<String, Integer> authorIdx = new LinkedHashMap<>();
+        for (Entry entry : entries.values()) {
+            for (String author : entry.authors) {
+                authorIdx.putIfAbsent(author, authorIdx.size());
+            }
+        }
+        final Path tmp = new File(file.getParentFile(), FILE_NAME + ".tmp").toPath();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                final byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+                commitId.copyRawTo(id, 0);
+                out.write(id);
+                out.writeInt(authorIdx.size());
+                for (String author : authorIdx.keySet()) {
+                    out.writeUTF(author);
+                }
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().blobId.copyRawTo(id, 0);
+                    out.write(id);
+                    out.writeInt(entry.getValue().authors.length);
+                    for (int i = 0; i < entry.getValue().authors.length; i++) {
+                        out.writeInt(authorIdx.get(entry.getValue().authors[i]));
+                        out.writeInt(entry.getValue().lines[i]);
+                    }
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot store blame statistic " + file, e);
+        }
+    }
+
+}
@@ -0,0 +1,432 @@
+package com.az.gitember.scm.impl.git;
+
+import com.az.gitember.misc.ScmItem;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Changed paths of commits against the first parent. Keeps recently used lists of changed items in memory
+ * and compact bloom filter of changed paths per commit, which is stored under .git/gitember folder.
+ * Each path is added to the filter together with all its parent folders, so filter can
+ * be asked about folder as well.
+ *
+ * Stored filters are read through memory mapped file, only filters added since the last store are kept in heap.
+ * All numbers are big endian. Layout:
+ * <pre>
+ * header      magic, version, commit count N, filter word count W
+ * ids         N * 20 bytes, commit ids in sorted order
+ * offsets     (N + 1) * int, offset of the first word of filter, empty filter matches any path
+ * words       W * long
+ * </pre>
+ */
+public class ChangedPathsCache {
+
+    private final static Logger log = Logger.getLogger(ChangedPathsCache.class.getName());
+
+    static final String FILE_NAME = "changed-paths";
+
+    private static final int MAGIC = 0x47454350;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 4 * 4;
+
+    private static final int ID_SIZE = Constants.OBJECT_ID_LENGTH;
+
+    private static final int ITEMS_CACHE_SIZE = 500;
+
+    private static final int BITS_PER_PATH = 10;
+
+    private static final int HASH_COUNT = 7;
+
+    /**
+     * Commits, which change more paths, get empty filter, that matches any path.
+     */
+    static final int MAX_PATHS = 512;
+
+    private static final long[] ANY_PATH = new long[0];
+
+    private final File file;
+
+    private final Map<ObjectId, List<ScmItem>> items = new LinkedHashMap<ObjectId, List<ScmItem>>(
+            ITEMS_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, List<ScmItem>> eldest) {
+            return size() > ITEMS_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Stored filters, null until the first access.
+     */
+    private ByteBuffer stored;
+
+    private int storedCount;
+
+    private int offsetsPos;
+
+    private int wordsPos;
+
+    /**
+     * Filters, which are not stored yet.
+     */
+    private final Map<ObjectId, long[]> added = new HashMap<>();
+
+    private final int[] raw = new int[5];
+
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread th = new Thread(r, "changed-paths-index");
+        th.setDaemon(true);
+        th.setPriority(Thread.MIN_PRIORITY);
+        return th;
+    });
+
+    private boolean indexing = false;
+
+    public ChangedPathsCache(final File folder) {
+        this.file = new File(folder, FILE_NAME);
+    }
+
+    /**
+     * @param commitId commit
+     * @return changed items of commit without path filter or null if they are not cached
+     */
+    public synchronized List<ScmItem> getItems(final AnyObjectId commitId) {
+        return items.get(commitId);
+    }
+
+    public synchronized void putItems(final AnyObjectId commitId, final List<ScmItem> changed) {
+        items.put(commitId.copy(), Collections.unmodifiableList(changed));
+    }
+
+    /**
+     * @param commitId commit
+     * @return true if changed paths of commit are known
+     */
+    public synchronized boolean hasFilter(final AnyObjectId commitId) {
+        return added.containsKey(commitId) || findStored(commitId) >= 0;
+    }
+
+    /**
+     * @param commitId commit
+     * @param path     file or folder
+     * @return false if commit definitely does not change given path, true if it may change path
+     * or it is unknown
+     */
+    public synchronized boolean mayChange(final AnyObjectId commitId, final String path) {
+        final long[] filter = added.get(commitId);
+        final int from;
+        final int words;
+        if (filter != null) {
+            from = 0;
+            words = filter.length;
+        } else {
+            final int idx = findStored(commitId);
+            if (idx < 0) {
+                return true;
+            }
+            from = stored.getInt(offsetsPos + idx * 4);
+            words = stored.getInt(offsetsPos + (idx + 1) * 4) - from;
+        }
+        if (words == 0) {
+            return true;
+        }
+        final int bits = words * Long.SIZE;
+        final int h1 = path.hashCode();
+        final int h2 = secondHash(path);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final int bit = Math.floorMod(h1 + i * h2, bits);
+            final long word = filter != null ? filter[bit >>> 6] : stored.getLong(wordsPos + (from + (bit >>> 6)) * 8);
+            if ((word & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remember changed paths of commit. Filter, that matches any path, is kept for commit
+     * with more than {@link #MAX_PATHS} changed paths.
+     *
+     * @param commitId     commit
+     * @param changedPaths full paths of changed files
+     */
+    public synchronized void putFilter(final AnyObjectId commitId, final Collection<String> changedPaths) {
+        final long[] filter;
+        if (changedPaths.size() > MAX_PATHS) {
+            filter = ANY_PATH;
+        } else {
+            final Set<String> keys = new HashSet<>();
+            for (String path : changedPaths) {
+                int idx = path.indexOf('/');
+                while (idx > 0) {
+                    keys.add(path.substring(0, idx));
+                    idx = path.indexOf('/', idx + 1);
+                }
+                keys.add(path);
+            }
+            filter = new long[Math.max(1, (keys.size() * BITS_PER_PATH + Long.SIZE - 1) / Long.SIZE)];
+            for (String key : keys) {
+                add(filter, key);
+            }
+        }
+        added.put(commitId.copy(), filter);
+    }
+
+    /**
+     * Collect changed paths of given commits and store filters in background thread of this cache.
+     * Only one indexing runs at time, request is ignored, if indexing is in progress,
+     * the next file history will pass these commits again.
+     *
+     * @param repository repository
+     * @param commitIds  commits to index
+     */
+    public void index(final Repository repository, final List<ObjectId> commitIds) {
+        synchronized (this) {
+            if (indexing || commitIds.isEmpty()) {
+                return;
+            }
+            indexing = true;
+        }
+        indexExecutor.execute(() -> {
+            try {
+                indexNow(repository, commitIds);
+            } finally {
+                synchronized (this) {
+                    indexing = false;
+                }
+            }
+        });
+    }
+
+    private void indexNow(final Repository repository, final List<ObjectId> commitIds) {
+        try (RevWalk revWalk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            revWalk.setRetainBody(false);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            final List<String> changedPaths = new ArrayList<>();
+            for (ObjectId commitId : commitIds) {
+                if (hasFilter(commitId)) {
+                    continue;
+                }
+                final RevCommit commit = revWalk.parseCommit(commitId);
+                if (commit.getParentCount() == 0) {
+                    continue;
+                }
+                changedPaths.clear();
+                treeWalk.reset(revWalk.parseCommit(commit.getParent(0)).getTree(), commit.getTree());
+                while (treeWalk.next() && changedPaths.size() <= MAX_PATHS) {
+                    changedPaths.add(treeWalk.getPathString());
+                }
+                putFilter(commitId, changedPaths);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot index changed paths", e);
+        }
+        store();
+    }
+
+    private static void add(final long[] filter, final String path) {
+        final int bits = filter.length * Long.SIZE;
+        final int h1 = path.hashCode();
+        final int h2 = secondHash(path);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final int bit = Math.floorMod(h1 + i * h2, bits);
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * FNV-1a, forced to be odd, so probes do not cycle over part of filter.
+     */
+    private static int secondHash(final String path) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < path.length(); i++) {
+            h ^= path.charAt(i);
+            h *= 0x01000193;
+        }
+        return h | 1;
+    }
+
+    /**
+     * @return index of commit in stored filters or -1
+     */
+    private int findStored(final AnyObjectId commitId) {
+        if (stored == null) {
+            load();
+        }
+        int low = 0;
+        int high = storedCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            readRaw(mid);
+            final int cmp = commitId.compareTo(raw, 0);
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp > 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void readRaw(final int idx) {
+        final int pos = HEADER_SIZE + idx * ID_SIZE;
+        for (int i = 0; i < 5; i++) {
+            raw[i] = stored.getInt(pos + i * 4);
+        }
+    }
+
+    private void load() {
+        stored = ByteBuffer.allocate(0);
+        storedCount = 0;
+        if (file.exists()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported format");
+                }
+                final int count = buffer.getInt(8);
+                final int offsets = HEADER_SIZE + count * ID_SIZE;
+                final int words = offsets + (count + 1) * 4;
+                if ((long) words + buffer.getInt(12) * 8L > buffer.limit()) {
+                    throw new IOException("Changed paths are truncated");
+                }
+                stored = buffer;
+                storedCount = count;
+                offsetsPos = offsets;
+                wordsPos = words;
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Cannot read changed paths " + file + ", they will be rebuilt", e);
+            }
+        }
+    }
+
+    /**
+     * Merge stored filters with added ones into new file and map it. Replace can fail on some platforms,
+     * when old file is still mapped, in this case added filters stay in memory and will be stored next time.
+     */
+    public synchronized void store() {
+        if (added.isEmpty()) {
+            return;
+        }
+        if (stored == null) {
+            load();
+        }
+        final List<ObjectId> addedIds = new ArrayList<>(added.keySet());
+        addedIds.sort(ObjectId::compareTo);
+        // merged order, stored filter is its index, added filter is -1 - its index in addedIds
+        final int[] order = new int[storedCount + addedIds.size()];
+        int count = 0;
+        int storedIdx = 0;
+        int addedIdx = 0;
+        while (storedIdx < storedCount || addedIdx < addedIds.size()) {
+            final int cmp;
+            if (storedIdx == storedCount) {
+                cmp = 1;
+            } else if (addedIdx == addedIds.size()) {
+                cmp = -1;
+            } else {
+                readRaw(storedIdx);
+                cmp = -addedIds.get(addedIdx).compareTo(raw, 0);
+            }
+            if (cmp < 0) {
+                order[count++] = storedIdx++;
+            } else {
+                if (cmp == 0) {
+                    storedIdx++;
+                }
+                order[count++] = -1 - addedIdx++;
+            }
+        }
+        final Path tmp = new File(file.getParentFile(), FILE_NAME + ".tmp").toPath();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                int words = 0;
+                for (int i = 0; i < count; i++) {
+                    words += getWordCount(order[i], addedIds);
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                out.writeInt(words);
+                final byte[] id = new byte[ID_SIZE];
+                for (int i = 0; i < count; i++) {
+                    if (order[i] >= 0) {
+                        readRaw(order[i]);
+                        ObjectId.fromRaw(raw).copyRawTo(id, 0);
+                    } else {
+                        addedIds.get(-1 - order[i]).copyRawTo(id, 0);
+                    }
+                    out.write(id);
+                }
+                int offset = 0;
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(offset);
+                    offset += getWordCount(order[i], addedIds);
+                }
+                out.writeInt(offset);
+                for (int i = 0; i < count; i++) {
+                    if (order[i] >= 0) {
+                        final int from = stored.getInt(offsetsPos + order[i] * 4);
+                        final int to = stored.getInt(offsetsPos + (order[i] + 1) * 4);
+                        for (int w = from; w < to; w++) {
+                            out.writeLong(stored.getLong(wordsPos + w * 8));
+                        }
+                    } else {
+                        for (long bits : added.get(addedIds.get(-1 - order[i]))) {
+                            out.writeLong(bits);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            added.clear();
+            load();
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot store changed paths " + file, e);
+        }
+    }
+
+    private int getWordCount(final int merged, final List<ObjectId> addedIds) {
+        if (merged >= 0) {
+            return stored.getInt(offsetsPos + (merged + 1) * 4) - stored.getInt(offsetsPos + merged * 4);
+        }
+        return added.get(addedIds.get(-1 - merged)).length;
+    }
+
+}
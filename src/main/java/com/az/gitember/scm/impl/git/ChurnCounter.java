@@ -0,0 +1,252 @@
+package com.az.gitember.scm.impl.git;
+
+import com.az.gitember.misc.Pair;
+import com.az.gitember.misc.ScmActivity;
+import com.az.gitember.misc.ScmChurn;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lines added and deleted by commits of history, counted per author, per folder and per week.
+ * Weeks start on Monday, the same as weeks of {@link ScmActivity}.
+ * Each commit is compared with its first parent, changed text files are diffed in memory
+ * with histogram diff and only sizes of edits are counted, patch is not formatted.
+ *
+ * History is split into ranges of commits, which are counted in parallel, counters of range are merged
+ * as soon as range is done. Diff of the same pair of blobs is computed once, because
+ * the same change comes again with cherry picks, reverts and merges.
+ */
+class ChurnCounter {
+
+    private static final int RANGE_SIZE = 256;
+
+    /**
+     * Larger files are not diffed.
+     */
+    private static final int MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+    private static final int MAX_MEMOIZED_DIFFS = 200_000;
+
+    private static final DiffAlgorithm DIFF_ALGORITHM =
+            DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+
+    /**
+     * Counters of range of commits. Each counter is pair of added and deleted lines.
+     */
+    private static class Counters {
+
+        final long[][] byAuthor;
+
+        final Map<String, long[]> byFolder = new HashMap<>();
+
+        final Map<Integer, long[]> byWeek = new HashMap<>();
+
+        Counters(final int authorCount) {
+            byAuthor = new long[authorCount][2];
+        }
+
+        void add(final int author, final String path, final int week, final long added, final long deleted) {
+            final int slash = path.lastIndexOf('/');
+            final String folder = slash < 0 ? "/" : path.substring(0, slash);
+            add(byAuthor[author], added, deleted);
+            add(byFolder.computeIfAbsent(folder, f -> new long[2]), added, deleted);
+            add(byWeek.computeIfAbsent(week, w -> new long[2]), added, deleted);
+        }
+
+        void addAll(final Counters other) {
+            for (int i = 0; i < byAuthor.length; i++) {
+                add(byAuthor[i], other.byAuthor[i][0], other.byAuthor[i][1]);
+            }
+            other.byFolder.forEach((folder, c) -> add(byFolder.computeIfAbsent(folder, f -> new long[2]), c[0], c[1]));
+            other.byWeek.forEach((week, c) -> add(byWeek.computeIfAbsent(week, w -> new long[2]), c[0], c[1]));
+        }
+
+        private static void add(final long[] counter, final long added, final long deleted) {
+            counter[0] += added;
+            counter[1] += deleted;
+        }
+    }
+
+    private static class BlobPair {
+
+        final ObjectId oldId;
+
+        final ObjectId newId;
+
+        BlobPair(final ObjectId oldId, final ObjectId newId) {
+            this.oldId = oldId;
+            this.newId = newId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BlobPair)) {
+                return false;
+            }
+            final BlobPair other = (BlobPair) o;
+            return oldId.equals(other.oldId) && newId.equals(other.newId);
+        }
+
+        @Override
+        public int hashCode() {
+            return oldId.hashCode() * 31 + newId.hashCode();
+        }
+    }
+
+    private final Repository repository;
+
+    private final CommitGraph graph;
+
+    private final int threads;
+
+    /**
+     * Added lines in high and deleted lines in low half.
+     */
+    private final Map<BlobPair, Long> diffs = new ConcurrentHashMap<>();
+
+    ChurnCounter(final Repository repository, final CommitGraph graph, final int threads) {
+        this.repository = repository;
+        this.graph = graph;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param commit          the last commit
+     * @param progressMonitor progress monitor, counting is stopped if it is cancelled
+     * @return added and deleted lines
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    ScmChurn count(final AnyObjectId commit, final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final int start = graph.find(commit);
+        if (start < 0) {
+            throw new IOException("Commit " + commit.getName() + " is not in commit graph");
+        }
+        final int[] rows = graph.getHistory(start);
+        final Counters total = new Counters(graph.getAuthors().length);
+        final RangeExecutor executor = new RangeExecutor("churn", threads, RANGE_SIZE);
+        executor.run(
+                "Churn",
+                0,
+                rows.length,
+                (from, to) -> countRange(rows, from, to, executor),
+                total::addAll,
+                progressMonitor);
+
+        final String[] authors = graph.getAuthors();
+        final Map<String, Pair<Long, Long>> byAuthor = new TreeMap<>();
+        for (int i = 0; i < authors.length; i++) {
+            if (total.byAuthor[i][0] + total.byAuthor[i][1] > 0) {
+                final Pair<Long, Long> old = byAuthor.getOrDefault(authors[i], new Pair<>(0L, 0L));
+                byAuthor.put(authors[i], new Pair<>(old.getFirst() + total.byAuthor[i][0], old.getSecond() + total.byAuthor[i][1]));
+            }
+        }
+        final Map<String, Pair<Long, Long>> byFolder = new TreeMap<>();
+        total.byFolder.forEach((folder, c) -> byFolder.put(folder, new Pair<>(c[0], c[1])));
+        final Map<Date, Pair<Long, Long>> byWeek = new TreeMap<>();
+        total.byWeek.forEach((week, c) -> byWeek.put(ScmActivity.toDate(week), new Pair<>(c[0], c[1])));
+        return new ScmChurn(byAuthor, byFolder, byWeek);
+    }
+
+    private Counters countRange(final int[] rows,
+                                final int from,
+                                final int to,
+                                final RangeExecutor executor) throws IOException {
+        final Counters counters = new Counters(graph.getAuthors().length);
+        try (ObjectReader reader = repository.newObjectReader();
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (int i = from; i < to && !executor.isCancelled(); i++) {
+                final int row = rows[i];
+                treeWalk.reset();
+                if (graph.getParentCount(row) == 0) {
+                    treeWalk.addTree(new EmptyTreeIterator());
+                } else {
+                    treeWalk.addTree(graph.getTreeId(graph.getParent(row, 0)));
+                }
+                treeWalk.addTree(graph.getTreeId(row));
+                final int author = graph.getAuthorIndex(row);
+                final int week = ScmActivity.toWeek(graph.getCommitTime(row));
+                while (treeWalk.next()) {
+                    final long lines = countLines(reader, treeWalk);
+                    if (lines != 0) {
+                        counters.add(author, treeWalk.getPathString(), week, lines >>> 32, lines & 0xFFFFFFFFL);
+                    }
+                }
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * @return added lines in high and deleted lines in low half
+     */
+    private long countLines(final ObjectReader reader, final TreeWalk treeWalk) throws IOException {
+        final ObjectId oldId = isFile(treeWalk.getFileMode(0)) ? treeWalk.getObjectId(0) : ObjectId.zeroId();
+        final ObjectId newId = isFile(treeWalk.getFileMode(1)) ? treeWalk.getObjectId(1) : ObjectId.zeroId();
+        if (oldId.equals(newId)) {
+            return 0;
+        }
+        final BlobPair key = new BlobPair(oldId, newId);
+        final Long memoized = diffs.get(key);
+        if (memoized != null) {
+            return memoized;
+        }
+        final RawText oldText = read(reader, oldId);
+        final RawText newText = read(reader, newId);
+        long added = 0;
+        long deleted = 0;
+        if (oldText != null && newText != null) {
+            for (Edit edit : DIFF_ALGORITHM.diff(RawTextComparator.DEFAULT, oldText, newText)) {
+                added += edit.getLengthB();
+                deleted += edit.getLengthA();
+            }
+        }
+        final long rez = added << 32 | deleted;
+        if (diffs.size() < MAX_MEMOIZED_DIFFS) {
+            diffs.put(key, rez);
+        }
+        return rez;
+    }
+
+    private static boolean isFile(final FileMode mode) {
+        return mode.getObjectType() == Constants.OBJ_BLOB;
+    }
+
+    /**
+     * @return text of blob, empty text for zero id or null for binary and too large files
+     */
+    private static RawText read(final ObjectReader reader, final ObjectId blobId) throws IOException {
+        if (ObjectId.zeroId().equals(blobId)) {
+            return RawText.EMPTY_TEXT;
+        }
+        try {
+            final byte[] bytes = reader.open(blobId).getCachedBytes(MAX_FILE_SIZE);
+            return RawText.isBinary(bytes) ? null : new RawText(bytes);
+        } catch (LargeObjectException e) {
+            return null;
+        }
+    }
+
+}
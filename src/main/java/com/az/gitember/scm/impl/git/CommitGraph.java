@@ -0,0 +1,271 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Read only view over commit graph in binary form. Graph can be backed by memory mapped file
+ * or by heap buffer just after update. All numbers are big endian. Layout:
+ * <pre>
+ * header      magic, version, commit count N, author count A, tip count T, parent count P
+ * tips        T * 20 bytes, tips, which were used to build the graph
+ * ids         N * 20 bytes, commit ids in order of addition, index in this array is a row
+ * trees       N * 20 bytes, tree ids
+ * sorted      N * int, rows sorted by commit id, for binary search
+ * time        N * int, commit time in seconds
+ * author      N * int, index of author name
+ * parentsIdx  (N + 1) * int, offset of first parent in parents array
+ * parents     P * int, parent rows
+ * authors     A * (int length, utf-8 bytes)
+ * </pre>
+ */
+public class CommitGraph {
+
+    static final int MAGIC = 0x47454347; // GECG
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 6 * 4;
+
+    static final int ID_SIZE = 20;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private final int tipCount;
+
+    private final int parentCount;
+
+    private final int tipsPos;
+    private final int idsPos;
+    private final int treesPos;
+    private final int sortedPos;
+    private final int timePos;
+    private final int authorPos;
+    private final int parentsIdxPos;
+    private final int parentsPos;
+
+    private final String[] authors;
+
+    CommitGraph(final ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unknown commit graph format");
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        final int authorCount = buffer.getInt(12);
+        this.tipCount = buffer.getInt(16);
+        this.parentCount = buffer.getInt(20);
+        this.tipsPos = HEADER_SIZE;
+        this.idsPos = tipsPos + tipCount * ID_SIZE;
+        this.treesPos = idsPos + size * ID_SIZE;
+        this.sortedPos = treesPos + size * ID_SIZE;
+        this.timePos = sortedPos + size * 4;
+        this.authorPos = timePos + size * 4;
+        this.parentsIdxPos = authorPos + size * 4;
+        this.parentsPos = parentsIdxPos + (size + 1) * 4;
+        this.authors = new String[authorCount];
+        int pos = parentsPos + parentCount * 4;
+        final ByteBuffer authorBuffer = buffer.duplicate();
+        for (int i = 0; i < authorCount; i++) {
+            final int len = buffer.getInt(pos);
+            final byte[] bytes = new byte[len];
+            authorBuffer.position(pos + 4);
+            authorBuffer.get(bytes);
+            authors[i] = new String(bytes, StandardCharsets.UTF_8);
+            pos += 4 + len;
+        }
+        if (pos > buffer.limit()) {
+            throw new IllegalArgumentException("Commit graph is truncated");
+        }
+    }
+
+    /**
+     * Empty graph.
+     */
+    static CommitGraph empty() {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        return new CommitGraph(buffer);
+    }
+
+    /**
+     * @return amount of commits in graph
+     */
+    public int size() {
+        return size;
+    }
+
+    int getTipCount() {
+        return tipCount;
+    }
+
+    ObjectId getTip(final int idx) {
+        return readId(tipsPos + idx * ID_SIZE);
+    }
+
+    public ObjectId getId(final int row) {
+        return readId(idsPos + row * ID_SIZE);
+    }
+
+    public ObjectId getTreeId(final int row) {
+        return readId(treesPos + row * ID_SIZE);
+    }
+
+    public int getCommitTime(final int row) {
+        return buffer.getInt(timePos + row * 4);
+    }
+
+    public int getAuthorIndex(final int row) {
+        return buffer.getInt(authorPos + row * 4);
+    }
+
+    public String getAuthor(final int row) {
+        return authors[getAuthorIndex(row)];
+    }
+
+    public int getParentCount(final int row) {
+        return buffer.getInt(parentsIdxPos + (row + 1) * 4) - buffer.getInt(parentsIdxPos + row * 4);
+    }
+
+    public int getParent(final int row, final int idx) {
+        return buffer.getInt(parentsPos + (buffer.getInt(parentsIdxPos + row * 4) + idx) * 4);
+    }
+
+    String[] getAuthors() {
+        return authors;
+    }
+
+    int getParentsTotal() {
+        return parentCount;
+    }
+
+    int getSortedRow(final int idx) {
+        return buffer.getInt(sortedPos + idx * 4);
+    }
+
+    /**
+     * Find row of given commit.
+     *
+     * @param id commit id
+     * @return row or -1 if graph does not contain given commit
+     */
+    public int find(final AnyObjectId id) {
+        final int[] raw = new int[5];
+        id.copyRawTo(raw, 0);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int row = getSortedRow(mid);
+            final int cmp = compareId(row, raw);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    int compareId(final int row, final int[] raw) {
+        final int pos = idsPos + row * ID_SIZE;
+        for (int i = 0; i < 5; i++) {
+            final int cmp = Integer.compareUnsigned(buffer.getInt(pos + i * 4), raw[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Copy raw sections of graph to given buffer, used during update.
+     */
+    void copyIds(final ByteBuffer dst) {
+        copy(dst, idsPos, size * ID_SIZE);
+    }
+
+    void copyTrees(final ByteBuffer dst) {
+        copy(dst, treesPos, size * ID_SIZE);
+    }
+
+    void copyTimes(final ByteBuffer dst) {
+        copy(dst, timePos, size * 4);
+    }
+
+    void copyAuthors(final ByteBuffer dst) {
+        copy(dst, authorPos, size * 4);
+    }
+
+    /**
+     * Copy offsets of parents without the last one, which closes the list.
+     */
+    void copyParentOffsets(final ByteBuffer dst) {
+        copy(dst, parentsIdxPos, size * 4);
+    }
+
+    void copyParents(final ByteBuffer dst) {
+        copy(dst, parentsPos, parentCount * 4);
+    }
+
+    /**
+     * @param row the last commit
+     * @return rows of commits reachable from given one, including it
+     */
+    int[] getHistory(final int row) {
+        final BitSet seen = new BitSet(size);
+        final int[] stack = new int[size];
+        int stackSize = 0;
+        stack[stackSize++] = row;
+        seen.set(row);
+        final int[] rez = new int[size];
+        int rezSize = 0;
+        while (stackSize > 0) {
+            final int current = stack[--stackSize];
+            rez[rezSize++] = current;
+            for (int i = 0; i < getParentCount(current); i++) {
+                final int parent = getParent(current, i);
+                if (!seen.get(parent)) {
+                    seen.set(parent);
+                    stack[stackSize++] = parent;
+                }
+            }
+        }
+        return Arrays.copyOf(rez, rezSize);
+    }
+
+    /**
+     * @return whole graph in binary form
+     */
+    ByteBuffer getBuffer() {
+        final ByteBuffer rez = buffer.duplicate();
+        rez.clear();
+        return rez;
+    }
+
+    private void copy(final ByteBuffer dst, final int pos, final int len) {
+        final ByteBuffer src = buffer.duplicate();
+        src.position(pos);
+        src.limit(pos + len);
+        dst.put(src);
+    }
+
+    private ObjectId readId(final int pos) {
+        final int[] raw = new int[5];
+        for (int i = 0; i < 5; i++) {
+            raw[i] = buffer.getInt(pos + i * 4);
+        }
+        return ObjectId.fromRaw(raw);
+    }
+
+}
@@ -0,0 +1,345 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.MaxCountRevFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent commit graph of repository. History is append only, so graph is extended
+ * only by commits, which are reachable from moved refs, and stored to the
+ * memory mapped file under .git/gitember folder.
+ */
+public class CommitGraphCache {
+
+    private final static Logger log = Logger.getLogger(CommitGraphCache.class.getName());
+
+    static final String FILE_NAME = "commit-graph";
+
+    private final Repository repository;
+
+    private final File file;
+
+    private volatile CommitGraph graph;
+
+    public CommitGraphCache(final Repository repository, final File folder) {
+        this.repository = repository;
+        this.file = new File(folder, FILE_NAME);
+    }
+
+    /**
+     * Bring graph in line with current refs.
+     *
+     * @param extraTips commits, which are not pointed by refs, but should be in graph
+     * @return graph, which contains all commits reachable from refs and given tips
+     * @throws IOException in case of walk errors
+     */
+    public synchronized CommitGraph update(final AnyObjectId... extraTips) throws IOException {
+        if (graph == null) {
+            graph = load();
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            final List<ObjectId> tips = new ArrayList<>();
+            final Set<ObjectId> seen = new HashSet<>();
+            if (!markNewTips(walk, graph, true, extraTips, tips, seen)) {
+                return graph;
+            }
+            for (int i = 0; i < graph.getTipCount(); i++) {
+                final ObjectId tip = graph.getTip(i);
+                try {
+                    walk.markUninteresting(walk.parseCommit(tip));
+                    if (seen.add(tip)) {
+                        tips.add(tip);
+                    }
+                } catch (MissingObjectException | IncorrectObjectTypeException e) {
+                    log.log(Level.FINE, "Tip " + tip.getName() + " was removed from repository");
+                }
+            }
+            final long start = System.currentTimeMillis();
+            graph = extend(graph, walk, tips);
+            log.log(Level.INFO, "Commit graph of " + graph.size() + " commits updated in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        store();
+        return graph;
+    }
+
+    /**
+     * Check without walk, whether graph contains all commits pointed by refs and given tips.
+     * Graph, which is being updated by other thread, is not current yet.
+     *
+     * @param extraTips commits, which are not pointed by refs, but should be in graph
+     * @return true if {@link #update(AnyObjectId...)} has nothing to walk
+     * @throws IOException in case of read errors
+     */
+    public boolean isCurrent(final AnyObjectId... extraTips) throws IOException {
+        CommitGraph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                if (graph == null) {
+                    graph = load();
+                }
+                current = graph;
+            }
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            return !markNewTips(walk, current, true, extraTips, new ArrayList<>(), new HashSet<>());
+        }
+    }
+
+    /**
+     * Walk only the newest commits from given tips, without cache. Parents, which are not walked,
+     * are dropped, like in shallow repository, so graph is good for the first page of history only.
+     *
+     * @param starts commits or tags to walk from
+     * @param limit  max amount of commits
+     * @return graph in memory
+     * @throws IOException in case of walk errors
+     */
+    public CommitGraph walk(final Collection<? extends AnyObjectId> starts, final int limit) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            final List<ObjectId> tips = new ArrayList<>();
+            final CommitGraph empty = CommitGraph.empty();
+            markNewTips(walk, empty, false, starts.toArray(new AnyObjectId[0]), tips, new HashSet<>());
+            walk.setRevFilter(MaxCountRevFilter.create(limit));
+            return extend(empty, walk, tips);
+        }
+    }
+
+    /**
+     * Mark commits of refs and given tips, which are not in graph, as start of walk.
+     *
+     * @param withRefs true to take commits of all refs too
+     * @param tips receives commits of refs and tips, both new and known ones
+     * @param seen ids, which are checked already
+     * @return true if at least one commit was marked
+     */
+    private boolean markNewTips(final RevWalk walk,
+                                final CommitGraph base,
+                                final boolean withRefs,
+                                final AnyObjectId[] extraTips,
+                                final List<ObjectId> tips,
+                                final Set<ObjectId> seen) throws IOException {
+        boolean moved = false;
+        final List<AnyObjectId> candidates = new ArrayList<>();
+        if (withRefs) {
+            for (Ref ref : repository.getRefDatabase().getRefs()) {
+                candidates.add(ref.getObjectId());
+            }
+        }
+        candidates.addAll(Arrays.asList(extraTips));
+        for (AnyObjectId id : candidates) {
+            if (id == null || !seen.add(id.copy())) {
+                continue;
+            }
+            if (base.find(id) >= 0) {
+                tips.add(id.copy());
+                continue;
+            }
+            try {
+                final RevObject obj = walk.peel(walk.parseAny(id));
+                if (obj instanceof RevCommit) {
+                    if (base.find(obj) < 0) {
+                        walk.markStart((RevCommit) obj);
+                        moved = true;
+                    }
+                    tips.add(obj.copy());
+                }
+            } catch (MissingObjectException e) {
+                log.log(Level.FINE, "Skip missing tip " + id.getName());
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Walk new commits and build new graph, which contains base one plus walked commits.
+     */
+    private CommitGraph extend(final CommitGraph graph, final RevWalk walk, final List<ObjectId> tips) throws IOException {
+        final int oldSize = graph.size();
+        final AuthorTable authorTable = new AuthorTable(graph.getAuthors());
+
+        final List<RevCommit> added = new ArrayList<>();
+        final Map<AnyObjectId, Integer> addedRows = new HashMap<>();
+        int[] addedAuthors = new int[1024];
+        for (RevCommit commit : walk) {
+            if (graph.find(commit) >= 0) {
+                continue; // reachable from tip, which was removed from repository
+            }
+            if ((added.size() & 4095) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Commit graph update was interrupted");
+            }
+            if (added.size() == addedAuthors.length) {
+                addedAuthors = Arrays.copyOf(addedAuthors, addedAuthors.length * 2);
+            }
+            addedAuthors[added.size()] = authorTable.intern(commit.getRawBuffer());
+            addedRows.put(commit, oldSize + added.size());
+            added.add(commit);
+            commit.disposeBody();
+        }
+
+        final List<String> authors = authorTable.getNames();
+        final int size = oldSize + added.size();
+        final int[] addedParentOffsets = new int[added.size() + 1];
+        final int[] addedParents;
+        {
+            int[] parents = new int[added.size() + 16];
+            int cnt = 0;
+            for (int i = 0; i < added.size(); i++) {
+                addedParentOffsets[i] = graph.getParentsTotal() + cnt;
+                for (RevCommit parent : added.get(i).getParents()) {
+                    Integer row = addedRows.get(parent);
+                    if (row == null) {
+                        row = graph.find(parent);
+                    }
+                    if (row < 0) {
+                        continue; // shallow repository
+                    }
+                    if (cnt == parents.length) {
+                        parents = Arrays.copyOf(parents, parents.length * 2);
+                    }
+                    parents[cnt++] = row;
+                }
+            }
+            addedParentOffsets[added.size()] = graph.getParentsTotal() + cnt;
+            addedParents = Arrays.copyOf(parents, cnt);
+        }
+        final int parentTotal = graph.getParentsTotal() + addedParents.length;
+
+        final byte[][] authorBytes = new byte[authors.size()][];
+        int authorsLen = 0;
+        for (int i = 0; i < authorBytes.length; i++) {
+            authorBytes[i] = authors.get(i).getBytes(StandardCharsets.UTF_8);
+            authorsLen += 4 + authorBytes[i].length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                CommitGraph.HEADER_SIZE
+                        + tips.size() * CommitGraph.ID_SIZE
+                        + size * CommitGraph.ID_SIZE * 2
+                        + size * 4 * 3
+                        + (size + 1) * 4
+                        + parentTotal * 4
+                        + authorsLen
+        );
+        buffer.putInt(CommitGraph.MAGIC);
+        buffer.putInt(CommitGraph.VERSION);
+        buffer.putInt(size);
+        buffer.putInt(authors.size());
+        buffer.putInt(tips.size());
+        buffer.putInt(parentTotal);
+        for (ObjectId tip : tips) {
+            tip.copyRawTo(buffer);
+        }
+        graph.copyIds(buffer);
+        for (RevCommit commit : added) {
+            commit.copyRawTo(buffer);
+        }
+        graph.copyTrees(buffer);
+        for (RevCommit commit : added) {
+            commit.getTree().copyRawTo(buffer);
+        }
+        putSortedRows(graph, buffer, added, addedRows);
+        graph.copyTimes(buffer);
+        for (RevCommit commit : added) {
+            buffer.putInt(commit.getCommitTime());
+        }
+        graph.copyAuthors(buffer);
+        for (int i = 0; i < added.size(); i++) {
+            buffer.putInt(addedAuthors[i]);
+        }
+        graph.copyParentOffsets(buffer);
+        for (int offset : addedParentOffsets) {
+            buffer.putInt(offset);
+        }
+        graph.copyParents(buffer);
+        for (int parent : addedParents) {
+            buffer.putInt(parent);
+        }
+        for (byte[] bytes : authorBytes) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.flip();
+        return new CommitGraph(buffer);
+    }
+
+    /**
+     * Merge sorted rows of old graph with sorted added commits.
+     */
+    private static void putSortedRows(final CommitGraph graph,
+                                      final ByteBuffer buffer,
+                                      final List<RevCommit> added,
+                                      final Map<AnyObjectId, Integer> addedRows) {
+        final List<RevCommit> sorted = new ArrayList<>(added);
+        sorted.sort((c1, c2) -> c1.compareTo(c2));
+        final int[] raw = new int[5];
+        int oldIdx = 0;
+        int newIdx = 0;
+        while (oldIdx < graph.size() || newIdx < sorted.size()) {
+            if (newIdx < sorted.size()) {
+                sorted.get(newIdx).copyRawTo(raw, 0);
+            }
+            if (newIdx == sorted.size()
+                    || (oldIdx < graph.size() && graph.compareId(graph.getSortedRow(oldIdx), raw) < 0)) {
+                buffer.putInt(graph.getSortedRow(oldIdx++));
+            } else {
+                buffer.putInt(addedRows.get(sorted.get(newIdx++)));
+            }
+        }
+    }
+
+    private CommitGraph load() {
+        if (file.exists()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return new CommitGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Cannot read commit graph " + file + ", it will be rebuilt", e);
+            }
+        }
+        return CommitGraph.empty();
+    }
+
+    /**
+     * Write graph to temporary file and replace the old one. Replace can fail on some platforms,
+     * when old file is still mapped, in this case graph stays in memory and will be stored next time.
+     */
+    private void store() {
+        final Path tmp = new File(file.getParentFile(), FILE_NAME + ".tmp").toPath();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (FileChannel channel = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = graph.getBuffer();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            graph = load();
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot store commit graph " + file, e);
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Branch history, which is laid out page by page over {@link CommitGraph}, see {@link HistoryGraph}.
+ * Rows are addressed by index. Commit objects are not read for layout, author and time are taken
+ * from graph, messages are read only for rows, which are shown.
+ */
+public class CommitHistory implements AutoCloseable {
+
+    private final static Logger log = Logger.getLogger(CommitHistory.class.getName());
+
+    private final Repository repository;
+
+    private final HistoryGraph historyGraph;
+
+    private final CommitGraph graph;
+
+    private final Map<AnyObjectId, Set<Ref>> refs;
+
+    private final ObjectReader reader;
+
+    private boolean closed = false;
+
+    CommitHistory(final Repository repository,
+                  final HistoryGraph historyGraph,
+                  final Map<AnyObjectId, Set<Ref>> refs) {
+        this.repository = repository;
+        this.historyGraph = historyGraph;
+        this.graph = historyGraph.getCommitGraph();
+        this.refs = refs;
+        this.reader = repository.newObjectReader();
+    }
+
+    /**
+     * Lay out next portion of history.
+     *
+     * @param pageSize amount of commits to load
+     * @return amount of new rows, 0 if history is complete
+     */
+    public synchronized int loadPage(final int pageSize) {
+        if (closed) {
+            return 0;
+        }
+        final int rez = historyGraph.loadPage(pageSize);
+        if (historyGraph.isComplete() && rez > 0) {
+            log.log(Level.INFO, "History of " + historyGraph.size() + " commits uses "
+                    + historyGraph.getMemoryUsage() + " bytes of layout, "
+                    + historyGraph.getMemoryUsage() / historyGraph.size() + " per commit");
+        }
+        return rez;
+    }
+
+    /**
+     * @return true if all commits were laid out
+     */
+    public synchronized boolean isComplete() {
+        return closed || historyGraph.isComplete();
+    }
+
+    public synchronized int size() {
+        return historyGraph.size();
+    }
+
+    /**
+     * @return lanes of history. Must be used under lock of this history, because layout is extended
+     * by {@link #loadPage(int)}
+     */
+    public HistoryGraph getHistoryGraph() {
+        return historyGraph;
+    }
+
+    public ObjectId getId(final int row) {
+        return graph.getId(historyGraph.getGraphRow(row));
+    }
+
+    public int getCommitTime(final int row) {
+        return graph.getCommitTime(historyGraph.getGraphRow(row));
+    }
+
+    /**
+     * Read first lines of commit messages and committer names of range of rows.
+     *
+     * @param fromRow    first row
+     * @param toRow      row after the last one
+     * @param messages   receives messages from index 0, empty string for commit, which can not be read
+     * @param committers receives committer names from index 0, empty string for commit, which can not be read
+     */
+    public synchronized void readRows(final int fromRow,
+                                      final int toRow,
+                                      final String[] messages,
+                                      final String[] committers) {
+        Arrays.fill(messages, 0, toRow - fromRow, "");
+        Arrays.fill(committers, 0, toRow - fromRow, "");
+        for (int row = fromRow; row < toRow && !closed; row++) {
+            try {
+                final RevCommit commit = RevCommit.parse(
+                        reader.open(getId(row), Constants.OBJ_COMMIT).getCachedBytes());
+                messages[row - fromRow] = commit.getShortMessage();
+                committers[row - fromRow] = commit.getCommitterIdent().getName();
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot read commit " + getId(row).getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Get fully parsed commit, which does not depend on this history.
+     *
+     * @param row row of history
+     * @return parsed commit
+     * @throws IOException in case of read errors
+     */
+    public RevCommit parseCommit(final int row) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(getId(row));
+        }
+    }
+
+    /**
+     * @param row row of history
+     * @return names of refs, which point to commit of given row
+     */
+    public List<String> getRefNames(final int row) {
+        final List<String> rez = new ArrayList<>();
+        refs.getOrDefault(getId(row), Collections.emptySet()).forEach(r -> rez.add(r.getName()));
+        return rez;
+    }
+
+    /**
+     * @return ids of laid out rows, list is not changed by further pages
+     */
+    public synchronized List<ObjectId> getIds() {
+        final int size = historyGraph.size();
+        return new AbstractList<ObjectId>() {
+            @Override
+            public ObjectId get(int index) {
+                if (index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                return getId(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            reader.close();
+        }
+    }
+}
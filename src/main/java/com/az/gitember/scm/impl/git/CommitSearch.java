@@ -0,0 +1,196 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Search over history rows. Message, id, author, committer and changed paths are matched
+ * in chunks on background threads, each chunk with own object reader.
+ * Results are published as {@link CommitSearchResult} snapshots.
+ */
+public class CommitSearch implements AutoCloseable {
+
+    private final static Logger log = Logger.getLogger(CommitSearch.class.getName());
+
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Min interval between publishing of partial results, ms.
+     */
+    private static final long PUBLISH_INTERVAL = 200;
+
+    private final Repository repository;
+
+    private final ExecutorService executor;
+
+    private Search current;
+
+    CommitSearch(final Repository repository) {
+        this.repository = repository;
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                r -> {
+                    final Thread thread = new Thread(r, "commit-search");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Start search over given rows. Search in progress is cancelled. If query is the same as
+     * query of current search, only new rows at the end are searched.
+     *
+     * @param rows     rows to search
+     * @param query    lower case text to find
+     * @param listener receive results, called from background thread
+     */
+    public synchronized void search(final List<? extends AnyObjectId> rows,
+                                    final String query,
+                                    final Consumer<CommitSearchResult> listener) {
+        final int from;
+        if (current != null && !current.cancelled && current.query.equals(query) && rows.size() >= current.size) {
+            from = current.size;
+            current.listener = listener;
+        } else {
+            cancel();
+            current = new Search(query, listener);
+            from = 0;
+        }
+        final Search search = current;
+        search.size = rows.size();
+        final List<AnyObjectId> ids = new ArrayList<>(rows.subList(from, rows.size()));
+        search.pending.addAndGet((ids.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int start = 0; start < ids.size(); start += CHUNK_SIZE) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min(ids.size(), start + CHUNK_SIZE);
+            executor.submit(() -> search.searchChunk(ids.subList(chunkStart, chunkEnd), from + chunkStart));
+        }
+        if (ids.isEmpty()) {
+            search.publish(true);
+        }
+    }
+
+    /**
+     * Cancel search in progress.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private class Search {
+
+        private final String query;
+
+        private final BitSet matches = new BitSet();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicInteger searched = new AtomicInteger();
+
+        private volatile Consumer<CommitSearchResult> listener;
+
+        private volatile boolean cancelled = false;
+
+        private int size = 0;
+
+        private long lastPublished = 0;
+
+        Search(final String query, final Consumer<CommitSearchResult> listener) {
+            this.query = query;
+            this.listener = listener;
+        }
+
+        void searchChunk(final List<AnyObjectId> ids, final int offset) {
+            final BitSet chunkMatches = new BitSet();
+            try (ObjectReader reader = repository.newObjectReader();
+                 RevWalk revWalk = new RevWalk(reader);
+                 TreeWalk treeWalk = new TreeWalk(reader)) {
+                treeWalk.setRecursive(true);
+                treeWalk.setFilter(TreeFilter.ANY_DIFF);
+                for (int i = 0; i < ids.size() && !cancelled; i++) {
+                    try {
+                        if (matches(revWalk, treeWalk, ids.get(i))) {
+                            chunkMatches.set(offset + i);
+                        }
+                    } catch (IOException e) {
+                        log.log(Level.WARNING, "Cannot search in " + ids.get(i).getName(), e);
+                    }
+                }
+            }
+            if (!cancelled) {
+                synchronized (this) {
+                    matches.or(chunkMatches);
+                }
+                searched.addAndGet(ids.size());
+                publish(pending.decrementAndGet() == 0);
+            }
+        }
+
+        private boolean matches(final RevWalk revWalk, final TreeWalk treeWalk, final AnyObjectId id) throws IOException {
+            final RevCommit commit = revWalk.parseCommit(id);
+            if (commit.getName().contains(query)
+                    || commit.getFullMessage().toLowerCase().contains(query)
+                    || identContains(commit.getAuthorIdent())
+                    || identContains(commit.getCommitterIdent())) {
+                return true;
+            }
+            treeWalk.reset();
+            if (commit.getParentCount() > 0) {
+                treeWalk.addTree(revWalk.parseCommit(commit.getParent(0)).getTree());
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(commit.getTree());
+            while (treeWalk.next()) {
+                if (treeWalk.getPathString().toLowerCase().contains(query)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean identContains(final PersonIdent ident) {
+            return ident != null
+                    && ((ident.getName() != null && ident.getName().toLowerCase().contains(query))
+                    || (ident.getEmailAddress() != null && ident.getEmailAddress().toLowerCase().contains(query)));
+        }
+
+        synchronized void publish(final boolean complete) {
+            final long now = System.currentTimeMillis();
+            if (cancelled || (!complete && now - lastPublished < PUBLISH_INTERVAL)) {
+                return;
+            }
+            lastPublished = now;
+            listener.accept(new CommitSearchResult(query, (BitSet) matches.clone(), searched.get(), complete));
+        }
+
+    }
+
+}
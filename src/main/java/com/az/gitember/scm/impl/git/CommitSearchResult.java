@@ -0,0 +1,64 @@
+package com.az.gitember.scm.impl.git;
+
+import java.util.BitSet;
+
+/**
+ * Snapshot of commit search. Bit is set for row of each matched commit.
+ */
+public class CommitSearchResult {
+
+    private final String query;
+
+    private final BitSet matches;
+
+    private final int searched;
+
+    private final boolean complete;
+
+    CommitSearchResult(final String query, final BitSet matches, final int searched, final boolean complete) {
+        this.query = query;
+        this.matches = matches;
+        this.searched = searched;
+        this.complete = complete;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean isMatch(final int row) {
+        return row >= 0 && matches.get(row);
+    }
+
+    public int getMatchCount() {
+        return matches.cardinality();
+    }
+
+    /**
+     * @return amount of rows, which are already searched
+     */
+    public int getSearched() {
+        return searched;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @param row current row
+     * @return next matched row after given or -1
+     */
+    public int next(final int row) {
+        return matches.nextSetBit(row + 1);
+    }
+
+    /**
+     * @param row current row
+     * @return previous matched row before given or -1
+     */
+    public int previous(final int row) {
+        return row <= 0 ? -1 : matches.previousSetBit(row - 1);
+    }
+
+}
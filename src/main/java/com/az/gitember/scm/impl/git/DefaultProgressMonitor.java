@@ -3,6 +3,7 @@ package com.az.gitember.scm.impl.git;
 import org.eclipse.jgit.lib.ProgressMonitor;
 
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 /**
@@ -12,12 +13,24 @@ public class DefaultProgressMonitor implements ProgressMonitor {
 
     private final BiConsumer<String, Double> percentageCompleteConsumer;
 
+    private final BooleanSupplier cancelledSupplier;
+
     private int totalWork = Integer.MAX_VALUE;
     private int completed = 0;
     private String title;
 
     public DefaultProgressMonitor(BiConsumer<String, Double> percentageCompleteConsumer) {
+        this(percentageCompleteConsumer, () -> false);
+    }
+
+    /**
+     * @param percentageCompleteConsumer receives title and completed part of task
+     * @param cancelledSupplier          tells, that operation is cancelled outside, for example task is cancelled
+     */
+    public DefaultProgressMonitor(BiConsumer<String, Double> percentageCompleteConsumer,
+                                  BooleanSupplier cancelledSupplier) {
         this.percentageCompleteConsumer = percentageCompleteConsumer;
+        this.cancelledSupplier = cancelledSupplier;
     }
 
     @Override
@@ -46,7 +59,7 @@ public class DefaultProgressMonitor implements ProgressMonitor {
 
     @Override
     public boolean isCancelled() {
-        return false;
+        return cancelledSupplier.getAsBoolean();
     }
 
     public void setTotalWork(int totalWork) {
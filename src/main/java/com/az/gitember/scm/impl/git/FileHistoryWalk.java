@@ -0,0 +1,270 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Walk over commits, which change given path. History is simplified the same way as path limited
+ * log does: commit is skipped if path is the same as in the parent, merge, which keeps path of
+ * one of parents, is followed only to this parent and history of merge parent, which has no path at all,
+ * is cut.
+ *
+ * Commits, which do not change path according to {@link ChangedPathsCache}, are skipped
+ * without tree diff. Commits with unknown changed paths are diffed by path only and remembered,
+ * so they can be indexed later, see {@link ChangedPathsCache#index(Repository, List)}.
+ *
+ * Optionally walk follows renames of file. Commit, which adds file, is checked for deleted file with
+ * the same content first and only then for similar files with rename detector. Like log --follow,
+ * walk continues with the old path for all further commits.
+ */
+class FileHistoryWalk implements AutoCloseable {
+
+    private static final int SAME = 0;
+    private static final int ADDED = 1;
+    private static final int CHANGED = 2;
+
+    private final Repository repository;
+
+    private final ChangedPathsCache changedPathsCache;
+
+    private String path;
+
+    /**
+     * Path in the last returned commit.
+     */
+    private String commitPath;
+
+    /**
+     * Old path of file, if last included commit renames it.
+     */
+    private String renamedFrom;
+
+    private boolean followRenames = false;
+
+    private BooleanSupplier cancelled = () -> false;
+
+    private final ObjectReader reader;
+
+    private final RevWalk revWalk;
+
+    private final RevFlag queued;
+
+    /**
+     * Commits, which history is not relevant for path.
+     */
+    private final RevFlag cut;
+
+    /**
+     * Diff limited by path.
+     */
+    private final TreeWalk pathWalk;
+
+    private final List<ObjectId> notIndexed = new ArrayList<>();
+
+    private final PriorityQueue<RevCommit> queue = new PriorityQueue<>(
+            (c1, c2) -> Integer.compare(c2.getCommitTime(), c1.getCommitTime()));
+
+    FileHistoryWalk(final Repository repository,
+                    final ChangedPathsCache changedPathsCache,
+                    final AnyObjectId start,
+                    final String path) throws IOException {
+        this.repository = repository;
+        this.changedPathsCache = changedPathsCache;
+        this.reader = repository.newObjectReader();
+        this.revWalk = new RevWalk(reader);
+        this.revWalk.setRetainBody(false);
+        this.queued = revWalk.newFlag("queued");
+        this.cut = revWalk.newFlag("cut");
+        this.pathWalk = new TreeWalk(reader);
+        this.pathWalk.setRecursive(true);
+        setPath(path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+        enqueue(revWalk.parseCommit(start));
+    }
+
+    private void setPath(final String path) {
+        this.path = path;
+        this.pathWalk.setFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+    }
+
+    /**
+     * @param followRenames continue history with the old path, when file was renamed
+     */
+    void setFollowRenames(final boolean followRenames) {
+        this.followRenames = followRenames;
+    }
+
+    /**
+     * @param cancelled walk stops and {@link #next()} returns null, when it returns true
+     */
+    void setCancelled(final BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return path in the commit, which was returned last time
+     */
+    String getPath() {
+        return commitPath;
+    }
+
+    /**
+     * @return next commit, which changes path, with parsed body or null at the end of history or if walk is cancelled
+     * @throws IOException in case of read errors
+     */
+    RevCommit next() throws IOException {
+        while (!queue.isEmpty() && !cancelled.getAsBoolean()) {
+            final RevCommit commit = queue.poll();
+            if (include(commit)) {
+                revWalk.parseBody(commit);
+                commitPath = path;
+                if (renamedFrom != null) {
+                    setPath(renamedFrom);
+                    renamedFrom = null;
+                }
+                return commit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decide is commit changes path and queue parents, which history has to be followed.
+     */
+    private boolean include(final RevCommit commit) throws IOException {
+        final int parentCount = commit.has(cut) ? 0 : commit.getParentCount();
+        if (parentCount == 0) {
+            return compare(null, commit.getTree()) != SAME;
+        }
+        for (RevCommit parent : commit.getParents()) {
+            revWalk.parseHeaders(parent);
+        }
+        final int firstState = compareWithFirstParent(commit);
+        if (parentCount == 1) {
+            enqueue(commit.getParent(0));
+            if (firstState == ADDED && followRenames) {
+                renamedFrom = findRenameSource(commit);
+            }
+            return firstState != SAME;
+        }
+        for (int i = 0; i < parentCount; i++) {
+            final int state = i == 0 ? firstState : compare(commit.getParent(i).getTree(), commit.getTree());
+            if (state == SAME) {
+                enqueue(commit.getParent(i));
+                return false;
+            } else if (state == ADDED) {
+                commit.getParent(i).add(cut);
+            }
+        }
+        for (RevCommit parent : commit.getParents()) {
+            enqueue(parent);
+        }
+        return true;
+    }
+
+    private int compareWithFirstParent(final RevCommit commit) throws IOException {
+        if (!changedPathsCache.hasFilter(commit)) {
+            notIndexed.add(commit.copy());
+        } else if (!changedPathsCache.mayChange(commit, path)) {
+            return SAME;
+        }
+        return compare(commit.getParent(0).getTree(), commit.getTree());
+    }
+
+    /**
+     * @param commit commit with single parent, which adds path
+     * @return old path of file or null if file was not renamed or copied
+     */
+    private String findRenameSource(final RevCommit commit) throws IOException {
+        final ObjectId blobId;
+        try (TreeWalk fileWalk = TreeWalk.forPath(reader, path, commit.getTree())) {
+            if (fileWalk == null || fileWalk.isSubtree()) {
+                return null;
+            }
+            blobId = fileWalk.getObjectId(0);
+        }
+        final List<DiffEntry> entries;
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            treeWalk.reset(commit.getParent(0).getTree(), commit.getTree());
+            entries = DiffEntry.scan(treeWalk);
+        }
+        for (DiffEntry entry : entries) {
+            if (entry.getChangeType() == DiffEntry.ChangeType.DELETE && blobId.equals(entry.getOldId().toObjectId())) {
+                return entry.getOldPath();
+            }
+        }
+        final RenameDetector renameDetector = new RenameDetector(repository);
+        renameDetector.addAll(entries);
+        for (DiffEntry entry : renameDetector.compute(reader, NullProgressMonitor.INSTANCE)) {
+            if ((entry.getChangeType() == DiffEntry.ChangeType.RENAME || entry.getChangeType() == DiffEntry.ChangeType.COPY)
+                    && path.equals(entry.getNewPath())) {
+                return entry.getOldPath();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return walked commits, which changed paths are not known
+     */
+    List<ObjectId> getNotIndexed() {
+        return notIndexed;
+    }
+
+    /**
+     * @return {@link #SAME}, {@link #ADDED} if path is only added to the new tree or {@link #CHANGED}
+     */
+    private int compare(final RevTree oldTree, final RevTree newTree) throws IOException {
+        pathWalk.reset();
+        if (oldTree == null) {
+            pathWalk.addTree(new EmptyTreeIterator());
+        } else {
+            pathWalk.addTree(oldTree);
+        }
+        pathWalk.addTree(newTree);
+        int rez = SAME;
+        while (pathWalk.next()) {
+            if (pathWalk.getRawMode(0) != 0) {
+                return CHANGED;
+            }
+            rez = ADDED;
+        }
+        return rez;
+    }
+
+    private void enqueue(final RevCommit commit) throws IOException {
+        if (!commit.has(queued)) {
+            revWalk.parseHeaders(commit);
+            commit.add(queued);
+            queue.add(commit);
+        }
+    }
+
+    @Override
+    public void close() {
+        revWalk.close();
+        reader.close();
+    }
+
+}
@@ -13,12 +13,12 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.*;
-import org.eclipse.jgit.blame.BlameResult;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.*;
@@ -29,12 +29,13 @@ import org.eclipse.jgit.revplot.PlotWalk;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.transport.*;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.FS;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
@@ -49,6 +50,8 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -64,12 +67,41 @@ public class GitRepositoryService {
 
     private final static List<File> tempFiles = new ArrayList<>();
 
+    /**
+     * Max amount of revisions in one batch of streamed file history.
+     */
+    private final static int FILE_HISTORY_BATCH_SIZE = 200;
+
+    /**
+     * Found revisions are passed at least once per this interval, ms.
+     */
+    private final static long FILE_HISTORY_FLUSH_INTERVAL = 50;
+
     private final Repository repository;
 
     private final StoredConfig config;
 
     private final String gitFolder;
 
+    private CommitGraphCache commitGraphCache;
+
+    private ChangedPathsCache changedPathsCache;
+
+    private BlameStatCache blameStatCache;
+
+    private LineCounter lineCounter;
+
+    private ActivityCube activityCube;
+
+    private UntrackedCache untrackedCache;
+
+    /**
+     * Hotspots of {@link #hotspotsCommit}.
+     */
+    private List<ScmHotspot> hotspots;
+
+    private ObjectId hotspotsCommit;
+
     /**
      * Construct service, which work with git. Each service designated to work with the new repo.
      * So we can have create project setting here form given folder
@@ -241,87 +273,236 @@ public class GitRepositoryService {
     }
 
 
-    public RemoteOperationValue blame(final Set<String> files, final ProgressMonitor progressMonitor) throws Exception {
+    /**
+     * Compute statistic report. Commits per author are counted first, then files are blamed. Code ownership,
+     * churn and activity are not part of report, see {@link #getOwnershipTimeline(ProgressMonitor)},
+     * {@link #getChurn(ProgressMonitor)} and {@link #getActivity(ProgressMonitor)}.
+     *
+     * @param files            files to blame
+     * @param progressMonitor  progress monitor
+     * @param snapshotConsumer receives partial report after each phase and several times per second while
+     *                         files are blamed, called from the current thread
+     * @return operation value with {@link ScmStat}
+     * @throws Exception in case of errors
+     */
+    public RemoteOperationValue blame(final Set<String> files,
+                                      final ProgressMonitor progressMonitor,
+                                      final Consumer<ScmStat> snapshotConsumer) throws Exception {
 
         final Ref head = repository.exactRef(Constants.HEAD);
-        final RevWalk walk = new RevWalk(repository);
-        final RevCommit commit = walk.parseCommit(head.getObjectId());
-        final Map<String, Map> rez = new TreeMap<>();
-        final Iterator<String> pathIter = files.iterator();
-
-        progressMonitor.beginTask("Blame", files.size());
-
-        int cnt = 0;
-
-        while (pathIter.hasNext()) {
-            final String path = pathIter.next();
-            final BlameCommand blamer = new BlameCommand(repository);
-
-            blamer.setStartCommit(commit);
-            blamer.setFilePath(path);
-
-            final BlameResult blame = blamer.call();
-            rez.put(path, countLines(blame));
-
-            progressMonitor.update(cnt++);
+        final BlameStatCache cache = getBlameStatCache();
+        final LineCounter lineCounter = getLineCounter();
+        final Map<String, ObjectId> blobIds = new HashMap<>();
+        final Set<String> skipped = new HashSet<>();
+        final Set<String> tooLarge = new TreeSet<>();
+        try (RevWalk walk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(walk.parseCommit(head.getObjectId()).getTree());
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (progressMonitor.isCancelled()) {
+                    return new RemoteOperationValue(RemoteOperationValue.Result.CANCEL, "Statistic report was cancelled");
+                }
+                if (files.contains(treeWalk.getPathString())) {
+                    final ObjectId blobId = treeWalk.getObjectId(0);
+                    final int lines = treeWalk.getFileMode(0).getObjectType() != Constants.OBJ_BLOB
+                            ? LineCounter.SKIPPED
+                            : lineCounter.count(treeWalk.getObjectReader(), blobId);
+                    if (lines <= 0) {
+                        // binary, too large or empty file has no lines to blame
+                        skipped.add(treeWalk.getPathString());
+                        if (lines == LineCounter.TOO_LARGE) {
+                            tooLarge.add(treeWalk.getPathString());
+                        }
+                    } else {
+                        blobIds.put(treeWalk.getPathString(), blobId);
+                    }
+                }
+            }
+        }
+        if (!tooLarge.isEmpty()) {
+            log.log(Level.INFO, "Files larger than " + lineCounter.getMaxSize() + " bytes are not blamed: " + tooLarge);
+        }
+        final Map<String, Integer> logMap = getCommitCountByAuthor(progressMonitor);
 
+        final Map<String, Integer> total = new TreeMap<>();
+        final List<String> changed = new ArrayList<>();
+        for (String path : files) {
+            if (skipped.contains(path)) {
+                continue;
+            }
+            final Map<String, Integer> cached = blobIds.containsKey(path) ? cache.get(path, blobIds.get(path)) : null;
+            if (cached == null) {
+                changed.add(path);
+            } else {
+                cached.forEach((author, cnt) -> total.merge(author, cnt, Integer::sum));
+            }
         }
+        log.log(Level.INFO, "Blame " + changed.size() + " of " + files.size() + " files, the rest is not changed since "
+                + (cache.getCommitId() == null ? "-" : cache.getCommitId().getName()));
+        snapshotConsumer.accept(new ScmStat(new TreeMap<>(total), logMap));
+        final ParallelBlame parallelBlame = new ParallelBlame(repository, Runtime.getRuntime().availableProcessors());
+        parallelBlame.setSnapshotConsumer(blamed -> {
+            final Map<String, Integer> snapshot = new TreeMap<>(total);
+            blamed.forEach((author, cnt) -> snapshot.merge(author, cnt, Integer::sum));
+            snapshotConsumer.accept(new ScmStat(snapshot, logMap));
+        });
+        parallelBlame
+                .blame(
+                        head.getObjectId(),
+                        changed,
+                        (path, lines) -> {
+                            if (blobIds.containsKey(path)) {
+                                cache.put(path, blobIds.get(path), lines);
+                            }
+                        },
+                        progressMonitor)
+                .forEach((author, cnt) -> total.merge(author, cnt, Integer::sum));
+        if (!progressMonitor.isCancelled()) {
+            cache.retain(files);
+            cache.setCommitId(head.getObjectId());
+        }
+        cache.store();
+
+        final ScmStat scmStat = new ScmStat(total, logMap);
+        snapshotConsumer.accept(scmStat);
+        if (progressMonitor.isCancelled()) {
+            return new RemoteOperationValue(RemoteOperationValue.Result.CANCEL, "Statistic report was cancelled", scmStat);
+        }
+
+        return new RemoteOperationValue(RemoteOperationValue.Result.OK, "Ok", scmStat);
 
-        Map<String, Integer> total = new TreeMap<>();
-        rez.values().stream().forEach(
-                m -> m.forEach(
-                        (author, c) -> {
-                            total.computeIfPresent(
-                                    (String) author,
-                                    (s, integer) -> integer + (Integer) c
-                            );
-                            total.computeIfAbsent(
-                                    (String) author,
-                                    s -> (Integer) c
-                            );
-                        }
-                )
-        );
+    }
 
+    /**
+     * Count commits of HEAD history per author. Commits are counted over commit graph, which keeps
+     * interned author of each commit, so only new commits are read to update the graph.
+     *
+     * @param progressMonitor progress monitor
+     * @return amount of commits per author
+     * @throws IOException in case of read errors
+     */
+    public Map<String, Integer> getCommitCountByAuthor(final ProgressMonitor progressMonitor) throws IOException {
+        final ObjectId head = repository.resolve(Constants.HEAD);
+        final Map<String, Integer> rez = new TreeMap<>();
+        if (head == null) {
+            return rez;
+        }
+        final CommitGraph graph = getCommitGraphCache().update(head);
+        final int start = graph.find(head);
+        if (start < 0) {
+            return rez;
+        }
+        final int[] rows = graph.getHistory(start);
+        progressMonitor.beginTask("Log", rows.length);
+        final String[] authors = graph.getAuthors();
+        final int[] counts = new int[authors.length];
+        for (int i = 0; i < rows.length; i++) {
+            counts[graph.getAuthorIndex(rows[i])]++;
+            if ((i + 1) % 4096 == 0) {
+                progressMonitor.update(i + 1);
+                if (progressMonitor.isCancelled()) {
+                    break;
+                }
+            }
+        }
+        progressMonitor.update(rows.length);
         progressMonitor.endTask();
-
-        progressMonitor.beginTask("Log", 300);
-        Map<String, Integer> logMap = new HashMap<>();
-
-        try (Git git = new Git(repository)) {
-            Iterable<RevCommit> commits = git.log().call();
-            int count = 0;
-            for (RevCommit rc : commits) {
-                count++;
-                String author = rc.getAuthorIdent().getName();
-                logMap.computeIfPresent(
-                        author,
-                        (a, i) -> i + 1
-                );
-                logMap.computeIfAbsent(
-                        author,
-                        s -> 1
-                );
+        for (int i = 0; i < authors.length; i++) {
+            if (counts[i] > 0) {
+                rez.merge(authors[i], counts[i], Integer::sum);
             }
         }
+        return rez;
+    }
 
-        progressMonitor.endTask();
+    /**
+     * Get amount of lines per author over history of HEAD. Blame results are reused between samples
+     * for not changed files.
+     *
+     * @param progressMonitor progress monitor
+     * @return lines per author by period
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if thread is interrupted
+     */
+    public ScmOwnership getOwnershipTimeline(final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final ObjectId head = repository.resolve(Constants.HEAD);
+        return new OwnershipTimeline(
+                repository,
+                getCommitGraphCache().update(head),
+                getBlameStatCache(),
+                getLineCounter(),
+                Runtime.getRuntime().availableProcessors()
+        ).compute(head, progressMonitor);
+    }
 
-        return new RemoteOperationValue(RemoteOperationValue.Result.OK, "Ok", new ScmStat(total, logMap));
+    /**
+     * Get amount of added and deleted lines over history of HEAD per author, folder and week.
+     *
+     * @param progressMonitor progress monitor
+     * @return added and deleted lines
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if thread is interrupted
+     */
+    public ScmChurn getChurn(final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final ObjectId head = repository.resolve(Constants.HEAD);
+        return new ChurnCounter(
+                repository,
+                getCommitGraphCache().update(head),
+                Runtime.getRuntime().availableProcessors()
+        ).count(head, progressMonitor);
+    }
 
+    /**
+     * Get commits and changed files by author, week and top level directory of all commits.
+     * Only commits, which were added since the last call, are read.
+     *
+     * @param progressMonitor progress monitor
+     * @return activity
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if thread is interrupted
+     */
+    public ScmActivity getActivity(final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        return getActivityCube().update(
+                repository,
+                getCommitGraphCache().update(repository.resolve(Constants.HEAD)),
+                Runtime.getRuntime().availableProcessors(),
+                progressMonitor);
     }
 
-    private Map<String, Integer> countLines(BlameResult blame) {
-        Map<String, Integer> rez = new HashMap<>();
-        if (blame != null && blame.getResultContents() != null) {
-            int lines = blame.getResultContents().size();
-            for (int i = 0; i < lines; i++) {
-                String author = blame.getSourceAuthor(i).getName();
-                Integer cnt = rez.getOrDefault(author, 0) + 1;
-                rez.put(author, cnt);
+    /**
+     * Get files of HEAD, which are changed most often. Result is kept until HEAD is moved.
+     *
+     * @param top             amount of files
+     * @param progressMonitor progress monitor
+     * @return files sorted by score, the highest first
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if thread is interrupted
+     */
+    public List<ScmHotspot> getHotspots(final int top,
+                                        final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return Collections.emptyList();
+        }
+        synchronized (this) {
+            if (head.equals(hotspotsCommit)) {
+                return hotspots.subList(0, Math.min(top, hotspots.size()));
             }
         }
-        return rez;
+        final List<ScmHotspot> rez = new HotspotAnalysis(
+                repository,
+                getCommitGraphCache().update(head),
+                getLineCounter(),
+                Runtime.getRuntime().availableProcessors()
+        ).analyze(head, progressMonitor);
+        if (!progressMonitor.isCancelled()) {
+            synchronized (this) {
+                hotspots = rez;
+                hotspotsCommit = head;
+            }
+        }
+        return rez.subList(0, Math.min(top, rez.size()));
     }
 
     public Set<String> getAllFiles() throws IOException {
@@ -373,26 +554,66 @@ public class GitRepositoryService {
                                                        final String fileName,
                                                        final int limit) throws Exception {
         final ArrayList<ScmRevisionInformation> rez = new ArrayList<>();
-        try (Git git = new Git(repository)) {
-            final LogCommand cmd = git.log()
-                    .add(repository.resolve(treeName))
-                    .setRevFilter(RevFilter.ALL)
-                    .addPath(fileName);
-            final Iterable<RevCommit> revCommits = cmd.call();
-            for (RevCommit revCommit : revCommits) {
+        try (FileHistoryWalk walk = new FileHistoryWalk(
+                repository, getChangedPathsCache(), repository.resolve(treeName), fileName)) {
+            RevCommit revCommit;
+            while (rez.size() < limit && (revCommit = walk.next()) != null) {
                 final ScmRevisionInformation info = adapt(revCommit, fileName);
                 rez.add(info);
-                if (rez.size() >= limit) {
-                    break;
-                }
             }
+            indexChangedPaths(walk.getNotIndexed());
         }
         return rez;
     }
 
 
     /**
-     * Adapt given rev commit to <code>ScmRevisionInformation</code>
+     * Walk history of given file and pass revisions in batches as soon as they are found.
+     * Renames of file are followed, so each revision has affected items with path of file in this revision.
+     *
+     * @param treeName  tree name
+     * @param fileName  given fileName
+     * @param consumer  receives batches of revisions in the walking thread
+     * @param cancelled walk stops, when it returns true
+     * @throws Exception
+     */
+    public void getFileHistory(final String treeName,
+                               final String fileName,
+                               final Consumer<List<ScmRevisionInformation>> consumer,
+                               final BooleanSupplier cancelled) throws Exception {
+        try (FileHistoryWalk walk = new FileHistoryWalk(
+                repository, getChangedPathsCache(), repository.resolve(treeName), fileName)) {
+            walk.setFollowRenames(true);
+            walk.setCancelled(cancelled);
+            List<ScmRevisionInformation> batch = new ArrayList<>();
+            long flushed = 0;
+            RevCommit revCommit;
+            while ((revCommit = walk.next()) != null) {
+                batch.add(adapt(revCommit, walk.getPath()));
+                final long now = System.currentTimeMillis();
+                if (batch.size() >= FILE_HISTORY_BATCH_SIZE || now - flushed >= FILE_HISTORY_FLUSH_INTERVAL) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>();
+                    flushed = now;
+                }
+            }
+            if (!batch.isEmpty() && !cancelled.getAsBoolean()) {
+                consumer.accept(batch);
+            }
+            indexChangedPaths(walk.getNotIndexed());
+        }
+    }
+
+    /**
+     * Collect changed paths of given commits in background, so next file history will skip them.
+     */
+    private void indexChangedPaths(final List<ObjectId> commitIds) {
+        getChangedPathsCache().index(repository, commitIds);
+    }
+
+    /**
+     * Adapt given rev commit to <code>ScmRevisionInformation</code>.
+     * Affected items are diffed on the first access.
      *
      * @param revCommit given <code>RevCommit</code>
      * @param fileName  optional file filter
@@ -419,7 +640,7 @@ public class GitRepositoryService {
             info.setRef(refs);
 
         }
-        info.setAffectedItems(getScmItems(revCommit, fileName));
+        info.setAffectedItems(() -> getScmItems(revCommit, fileName));
         return info;
     }
 
@@ -460,6 +681,77 @@ public class GitRepositoryService {
         return scmItems;
     }
 
+    /**
+     * @return commit graph cache of repository
+     */
+    public synchronized CommitGraphCache getCommitGraphCache() {
+        if (commitGraphCache == null) {
+            commitGraphCache = new CommitGraphCache(
+                    repository,
+                    new File(repository.getDirectory(), Const.CACHE_FOLDER));
+        }
+        return commitGraphCache;
+    }
+
+    /**
+     * @return blame statistic cache of repository
+     */
+    public synchronized BlameStatCache getBlameStatCache() {
+        if (blameStatCache == null) {
+            blameStatCache = new BlameStatCache(new File(repository.getDirectory(), Const.CACHE_FOLDER));
+        }
+        return blameStatCache;
+    }
+
+    /**
+     * @return untracked cache of repository
+     */
+    public synchronized UntrackedCache getUntrackedCache() {
+        if (untrackedCache == null) {
+            untrackedCache = new UntrackedCache(new File(repository.getDirectory(), Const.CACHE_FOLDER));
+        }
+        return untrackedCache;
+    }
+
+    /**
+     * @return activity cube of repository
+     */
+    public synchronized ActivityCube getActivityCube() {
+        if (activityCube == null) {
+            activityCube = new ActivityCube(new File(repository.getDirectory(), Const.CACHE_FOLDER));
+        }
+        return activityCube;
+    }
+
+    /**
+     * @return size limit of blamed files from settings
+     */
+    private long getMaxBlameFileSize() {
+        return GitemberApp.getSettingsService().getGitemberSettings().getMaxBlameFileSize();
+    }
+
+    /**
+     * @return line counter of repository blobs with size limit from settings
+     */
+    public synchronized LineCounter getLineCounter() {
+        if (lineCounter == null) {
+            lineCounter = new LineCounter(getMaxBlameFileSize());
+        } else {
+            lineCounter.setMaxSize(getMaxBlameFileSize());
+        }
+        return lineCounter;
+    }
+
+    /**
+     * @return changed paths cache of repository
+     */
+    public synchronized ChangedPathsCache getChangedPathsCache() {
+        if (changedPathsCache == null) {
+            changedPathsCache = new ChangedPathsCache(new File(repository.getDirectory(), Const.CACHE_FOLDER));
+        }
+        return changedPathsCache;
+    }
+
     /**
      * Get list of files in given revision.
      *
@@ -469,6 +761,12 @@ public class GitRepositoryService {
      * @throws IOException
      */
     public ArrayList<ScmItem> getScmItems(RevCommit revCommit, String filePath) {
+        if (revCommit != null && filePath == null) {
+            final List<ScmItem> cached = getChangedPathsCache().getItems(revCommit);
+            if (cached != null) {
+                return new ArrayList<>(cached);
+            }
+        }
         try (RevWalk rw = new RevWalk(repository)) {
             ArrayList<ScmItem> rez = new ArrayList<>();
             if (revCommit != null) {
@@ -481,6 +779,9 @@ public class GitRepositoryService {
                     diffs.stream()
                             .map(this::adaptDiffEntry)
                             .collect(Collectors.toCollection(() -> rez));
+                    if (filePath == null) {
+                        getChangedPathsCache().putItems(revCommit, new ArrayList<>(rez));
+                    }
 
                 } catch (IOException e) {
                     log.log(Level.SEVERE, "Cannot collect items from rev commit", e);
@@ -573,6 +874,116 @@ public class GitRepositoryService {
         }
     }
 
+    /**
+     * Create search over history rows. Caller is responsible to close returned search.
+     * @return commit search
+     */
+    public CommitSearch createCommitSearch() {
+        return new CommitSearch(repository);
+    }
+
+    /**
+     * Open history of given tree, which can be loaded page by page.
+     * History is laid out over commit graph cache, cache is brought up to date first, so cold cache
+     * means walk of the whole history. If cache can not be used, history is walked without it.
+     * Caller is responsible to close returned history.
+     * @param treeName tree name
+     * @param all to visualize all refs
+     * @return not loaded yet history
+     * @throws Exception
+     */
+    public CommitHistory openCommitHistory(final String treeName, boolean all) throws Exception {
+        final ObjectId rootId = resolveCommit(treeName);
+        final Map<AnyObjectId, Set<Ref>> refs = repository.getAllRefsByPeeledObjectId();
+        CommitGraph graph = null;
+        int[] startRows = null;
+        try {
+            graph = getCommitGraphCache().update(rootId);
+            startRows = getStartRows(graph, rootId, refs, all);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot update commit graph", e);
+        }
+        if (startRows == null) {
+            log.log(Level.WARNING, "Commit graph cannot be used for " + treeName + ", history is walked without it");
+            graph = getCommitGraphCache().walk(getStarts(rootId, refs, all), Integer.MAX_VALUE);
+            startRows = getStartRows(graph, rootId, refs, all);
+        }
+        return new CommitHistory(repository, new HistoryGraph(graph, startRows), refs);
+    }
+
+    /**
+     * Open history of the newest commits of given tree only, commit graph cache is not used.
+     * It is shown, while cache is built by {@link #updateCommitGraph(String)}.
+     * Caller is responsible to close returned history.
+     * @param treeName tree name
+     * @param all to visualize all refs
+     * @param limit max amount of commits
+     * @return not loaded yet history
+     * @throws IOException in case of walk errors
+     */
+    public CommitHistory openRecentCommitHistory(final String treeName, boolean all, int limit) throws IOException {
+        final ObjectId rootId = resolveCommit(treeName);
+        final Map<AnyObjectId, Set<Ref>> refs = repository.getAllRefsByPeeledObjectId();
+        final CommitGraph graph = getCommitGraphCache().walk(getStarts(rootId, refs, all), limit);
+        return new CommitHistory(repository, new HistoryGraph(graph, getStartRows(graph, rootId, refs, all)), refs);
+    }
+
+    /**
+     * @param treeName tree name
+     * @return true if history of tree can be opened from commit graph cache without walk
+     * @throws IOException in case of read errors
+     */
+    public boolean isCommitGraphCurrent(final String treeName) throws IOException {
+        return getCommitGraphCache().isCurrent(resolveCommit(treeName));
+    }
+
+    /**
+     * Bring commit graph cache in line with refs and given tree.
+     * @param treeName tree name
+     * @throws IOException in case of walk errors
+     */
+    public void updateCommitGraph(final String treeName) throws IOException {
+        getCommitGraphCache().update(resolveCommit(treeName));
+    }
+
+    private ObjectId resolveCommit(final String treeName) throws IOException {
+        final ObjectId rez = repository.resolve(treeName + "^{commit}");
+        if (rez == null) {
+            throw new IOException("Cannot resolve " + treeName);
+        }
+        return rez;
+    }
+
+    private static List<AnyObjectId> getStarts(final ObjectId rootId,
+                                               final Map<AnyObjectId, Set<Ref>> refs,
+                                               final boolean all) {
+        final List<AnyObjectId> rez = new ArrayList<>();
+        rez.add(rootId);
+        if (all) {
+            rez.addAll(refs.keySet());
+        }
+        return rez;
+    }
+
+    /**
+     * @return rows of root and refs in graph, null if root is not in graph
+     */
+    private static int[] getStartRows(final CommitGraph graph,
+                                      final ObjectId rootId,
+                                      final Map<AnyObjectId, Set<Ref>> refs,
+                                      final boolean all) {
+        final Set<Integer> startRows = new LinkedHashSet<>();
+        startRows.add(graph.find(rootId));
+        if (startRows.contains(-1)) {
+            return null;
+        }
+        if (all) {
+            refs.keySet().forEach(id -> startRows.add(graph.find(id)));
+            startRows.remove(-1);
+        }
+        return startRows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     /*private void v2() {
         System.out.println("$$$$$$$$$$$$$$$$$$$$$$$$$$$$");
         try {
@@ -627,6 +1038,22 @@ public class GitRepositoryService {
 
 
     public String saveDiff(String treeName, String oldRevision, String newRevision, String fileName) throws Exception {
+        return saveDiff(treeName, oldRevision, newRevision, fileName, fileName);
+    }
+
+    /**
+     * Save diff of file between two revisions, file may be renamed between them.
+     *
+     * @param treeName    tree name
+     * @param oldRevision old revision
+     * @param newRevision new revision
+     * @param oldFileName file name in old revision
+     * @param newFileName file name in new revision
+     * @return absolute path to diff file
+     * @throws Exception in case of error
+     */
+    public String saveDiff(String treeName, String oldRevision, String newRevision,
+                           String oldFileName, String newFileName) throws Exception {
 
         final File temp = File.createTempFile(Const.TEMP_FILE_PREFIX, Const.DIFF_EXTENSION);
         GitRepositoryService.deleteOnExit(temp);
@@ -634,19 +1061,13 @@ public class GitRepositoryService {
         AbstractTreeIterator oldTreeParser = prepareTreeParser(repository, oldRevision);
         AbstractTreeIterator newTreeParser = prepareTreeParser(repository, newRevision);
 
-        try (Git git = new Git(repository); OutputStream outputStream = new FileOutputStream(temp)) {
-            List<DiffEntry> diff = git.diff().
-                    setOldTree(oldTreeParser).
-                    setNewTree(newTreeParser).
-                    setPathFilter(PathFilter.create(fileName)).
-                    call();
-            for (DiffEntry entry : diff) {
-                //System.out.println("Entry: " + entry + ", from: " + entry.getOldId() + ", to: " + entry.getNewId());
-                try (DiffFormatter formatter = new DiffFormatter(outputStream)) {
-                    formatter.setRepository(repository);
-                    formatter.format(entry);
-                }
-            }
+        try (OutputStream outputStream = new FileOutputStream(temp);
+             DiffFormatter formatter = new DiffFormatter(outputStream)) {
+            formatter.setRepository(repository);
+            // deletion of old name and addition of new one are paired into rename
+            formatter.setDetectRenames(true);
+            formatter.setPathFilter(PathFilterGroup.createFromStrings(oldFileName, newFileName));
+            formatter.format(formatter.scan(oldTreeParser, newTreeParser));
         }
 
         return temp.getAbsolutePath();
@@ -789,48 +1210,84 @@ public class GitRepositoryService {
      * @return
      */
     public List<ScmItem> getStatuses(final String path) throws Exception {
+        return getStatuses(path == null ? null : Collections.singletonList(path));
+    }
+
+    /**
+     * Get statuses of given paths only. Path of directory means all files under it.
+     *
+     * @param paths paths relative to work tree or null for the whole working copy
+     * @return statuses of changed files sorted by path, backed by {@link ScmStatusTable}
+     */
+    public List<ScmItem> getStatuses(final Collection<String> paths) throws Exception {
 
-        Map<String, List<String>> statusMap = new HashMap<>();
-        List<ScmItem> scmItems = new ArrayList<>();
         try (Git git = new Git(repository)) {
 
-            StatusCommand statusCommand = git.status();
-            if (path != null) {
-                statusCommand.addPath(path);
+            final Status status;
+            if (paths == null) {
+                status = new ParallelStatus(repository, getUntrackedCache(), Runtime.getRuntime().availableProcessors()).call();
+            } else {
+                StatusCommand statusCommand = git.status();
+                paths.forEach(statusCommand::addPath);
+                status = statusCommand.call();
             }
-            Status status = statusCommand.call();
 
-            Map<String, IndexDiff.StageState> conflictingStageState = status.getConflictingStageState();
+            final ScmStatusTable statusTable = new ScmStatusTable(Arrays.asList(
+                    status.getConflicting(), status.getAdded(), status.getMissing(), status.getModified(),
+                    status.getRemoved(), status.getUncommittedChanges(), status.getUntracked(),
+                    status.getUntrackedFolders()));
 
-            status.getConflicting().forEach(item -> enrichStatus(statusMap, item, ScmItemStatus.CONFLICT));
-            status.getAdded().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.ADDED));
-            status.getAdded().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.CHANGED));
-            status.getMissing().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.MISSED));
-            status.getModified().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.MODIFIED));
-            status.getRemoved().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.REMOVED));
-            status.getUncommittedChanges().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.UNCOMMITED));
-            status.getUntracked().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.UNTRACKED));
-            status.getUntrackedFolders().forEach(s -> enrichStatus(statusMap, s, ScmItemStatus.UNTRACKED_FOLDER));
+            statusTable.addStatus(status.getConflicting(), ScmItemStatusMask.CONFLICT);
+            statusTable.addStatus(status.getAdded(), ScmItemStatusMask.ADDED | ScmItemStatusMask.CHANGED);
+            statusTable.addStatus(status.getMissing(), ScmItemStatusMask.MISSED);
+            statusTable.addStatus(status.getModified(), ScmItemStatusMask.MODIFIED);
+            statusTable.addStatus(status.getRemoved(), ScmItemStatusMask.REMOVED);
+            statusTable.addStatus(status.getUncommittedChanges(), ScmItemStatusMask.UNCOMMITED);
+            statusTable.addStatus(status.getUntracked(), ScmItemStatusMask.UNTRACKED);
+            statusTable.addStatus(status.getUntrackedFolders(), ScmItemStatusMask.UNTRACKED_FOLDER);
 
+            status.getConflictingStageState().forEach((s, stageState) ->
+                    statusTable.setSubstatus(s, adaptConflictingState(stageState)));
 
-            statusMap.forEach((s, strings) -> {
-                scmItems.add(
-                        new ScmItem(s, new ScmItemAttribute(strings, getConflictSubStatus(s, conflictingStageState)))
-                );
-            });
-
+            return statusTable;
         }
 
-
-        scmItems.sort((o1, o2) -> o1.getShortName().compareTo(o2.getShortName()));
-
-        return scmItems;
-
     }
 
-    private String getConflictSubStatus(String key, Map<String, IndexDiff.StageState> conflictingStageState) {
+    /**
+     * Files, which differ in index and HEAD. Working tree is not read.
+     *
+     * @return paths of staged changes
+     * @throws IOException in case of read errors
+     */
+    public Set<String> getStagedPaths() throws IOException {
+        final Set<String> rez = new TreeSet<>();
+        final ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            if (head == null) {
+                treeWalk.addTree(new EmptyTreeIterator());
+            } else {
+                treeWalk.addTree(head);
+            }
+            treeWalk.addTree(new DirCacheIterator(repository.readDirCache()));
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            while (treeWalk.next()) {
+                rez.add(treeWalk.getPathString());
+            }
+        }
+        return rez;
+    }
 
-        return adaptConflictingState(conflictingStageState.get(key));
+    /**
+     * Watch working copy for changes.
+     *
+     * @param listener receives changed paths from watcher thread
+     * @return watcher, which has to be closed, when it is not needed any more
+     * @throws IOException if watch service is not available
+     */
+    public WorkingCopyWatcher watchWorkingCopy(final WorkingCopyWatcher.Listener listener) throws IOException {
+        return new WorkingCopyWatcher(repository, listener);
     }
 
     private String adaptConflictingState(IndexDiff.StageState stageState) {
@@ -859,12 +1316,6 @@ public class GitRepositoryService {
         }
     }
 
-    private void enrichStatus(Map<String, List<String>> rez, String item, String itemStatus) {
-        List<String> list = rez.getOrDefault(item, new ArrayList<>());
-        list.add(itemStatus);
-        rez.put(item, list);
-    }
-
 
     /**
      * Add file to stage before commit.
@@ -896,6 +1347,15 @@ public class GitRepositoryService {
 
     }
 
+    /**
+     * Batch of stage, unstage and revert operations for many files, which is applied with one index update.
+     *
+     * @return empty batch
+     */
+    public IndexBatch createIndexBatch() {
+        return new IndexBatch(repository);
+    }
+
 
     /**
      * Rebase changes from given upstream into working copy.
@@ -1604,7 +2064,17 @@ public class GitRepositoryService {
         try (Git git = new Git(repository)) {
             try {
                 git.gc().setProgressMonitor(defaultProgressMonitor).call();
+                if (defaultProgressMonitor.isCancelled()) {
+                    return new RemoteOperationValue(RemoteOperationValue.Result.CANCEL, "Cleanup was cancelled");
+                }
                 return new RemoteOperationValue("Garbage was removed");
+            } catch (JGitInternalException e) {
+                if (defaultProgressMonitor.isCancelled()) {
+                    // pack writer stops with exception, when monitor is cancelled
+                    log.log(Level.INFO, "Cleanup was cancelled", e);
+                    return new RemoteOperationValue(RemoteOperationValue.Result.CANCEL, "Cleanup was cancelled");
+                }
+                throw e;
             } catch (GitAPIException e) {
 
                 log.log(Level.SEVERE, "Cannot clean up db", e);
@@ -0,0 +1,397 @@
+package com.az.gitember.scm.impl.git;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Laid out history over {@link CommitGraph}. Rows are added page by page in topological order,
+ * newest first. Everything is kept in primitive arrays: graph row and lane of each shown row,
+ * offsets of parent links and lane of each link. Link from child to parent leaves child row
+ * towards its lane, goes down along the lane and joins parent, which is in the same lane.
+ *
+ * To find links, which cross some row, set of open links is saved each {@link #CHECKPOINT} rows.
+ */
+public class HistoryGraph {
+
+    private static final int CHECKPOINT = 64;
+
+    private static final int FREE = -1;
+
+    /**
+     * Lane of commit, which is being added.
+     */
+    private static final int RESERVED = -2;
+
+    private final CommitGraph graph;
+
+    /**
+     * Shown row of graph commit, -1 if commit is not shown yet.
+     */
+    private final int[] rowByGraphRow;
+
+    /**
+     * Amount of not yet shown children of reachable commit.
+     */
+    private final int[] pendingChildren;
+
+    /**
+     * Max heap by commit time of commits, which have all children shown.
+     */
+    private final int[] heap;
+
+    private int heapSize = 0;
+
+    private final int[] graphRows;
+
+    private final int[] lanes;
+
+    /**
+     * Links of row are between parentOffsets[row] and parentOffsets[row + 1].
+     */
+    private final int[] parentOffsets;
+
+    private final int[] linkLanes;
+
+    private int size = 0;
+
+    /**
+     * Graph row, which is expected in lane, or {@link #FREE}.
+     */
+    private int[] laneTargets = new int[16];
+
+    /**
+     * Open links of each lane.
+     */
+    private int[][] laneLinks = new int[16][];
+
+    private int[] laneLinkCounts = new int[16];
+
+    private int[][] checkpoints = new int[16][];
+
+    private int maxLane = 0;
+
+    HistoryGraph(final CommitGraph graph, final int[] startRows) {
+        this.graph = graph;
+        this.pendingChildren = new int[graph.size()];
+        this.rowByGraphRow = new int[graph.size()];
+        Arrays.fill(rowByGraphRow, -1);
+        Arrays.fill(laneTargets, FREE);
+
+        final BitSet reachable = new BitSet(graph.size());
+        final int[] stack = new int[graph.size()];
+        int stackSize = 0;
+        int reachableCount = 0;
+        int linkCount = 0;
+        for (int start : startRows) {
+            if (!reachable.get(start)) {
+                reachable.set(start);
+                stack[stackSize++] = start;
+                reachableCount++;
+            }
+        }
+        while (stackSize > 0) {
+            final int row = stack[--stackSize];
+            final int parentCount = graph.getParentCount(row);
+            linkCount += parentCount;
+            for (int i = 0; i < parentCount; i++) {
+                final int parent = graph.getParent(row, i);
+                pendingChildren[parent]++;
+                if (!reachable.get(parent)) {
+                    reachable.set(parent);
+                    stack[stackSize++] = parent;
+                    reachableCount++;
+                }
+            }
+        }
+
+        this.heap = new int[reachableCount];
+        this.graphRows = new int[reachableCount];
+        this.lanes = new int[reachableCount];
+        this.parentOffsets = new int[reachableCount + 1];
+        this.linkLanes = new int[linkCount];
+        for (int row = reachable.nextSetBit(0); row >= 0; row = reachable.nextSetBit(row + 1)) {
+            if (pendingChildren[row] == 0) {
+                push(row);
+            }
+        }
+    }
+
+    /**
+     * Lay out next portion of history.
+     *
+     * @param pageSize amount of rows to add
+     * @return amount of added rows
+     */
+    int loadPage(final int pageSize) {
+        final int from = size;
+        while (size - from < pageSize && heapSize > 0) {
+            add(poll());
+        }
+        return size - from;
+    }
+
+    private void add(final int graphRow) {
+        final int row = size++;
+        if (row % CHECKPOINT == 0) {
+            saveCheckpoint(row / CHECKPOINT);
+        }
+        graphRows[row] = graphRow;
+        rowByGraphRow[graphRow] = row;
+
+        int lane = findLane(graphRow);
+        if (lane < 0) {
+            lane = freeLane();
+        } else {
+            laneLinkCounts[lane] = 0; // links to this row are closed
+        }
+        laneTargets[lane] = RESERVED;
+        lanes[row] = lane;
+
+        final int parentCount = graph.getParentCount(graphRow);
+        final int offset = parentOffsets[row];
+        parentOffsets[row + 1] = offset + parentCount;
+        for (int i = 0; i < parentCount; i++) {
+            final int parent = graph.getParent(graphRow, i);
+            int linkLane = findLane(parent);
+            if (linkLane < 0) {
+                linkLane = laneTargets[lane] == RESERVED ? lane : freeLane();
+                laneTargets[linkLane] = parent;
+            }
+            linkLanes[offset + i] = linkLane;
+            addLaneLink(linkLane, offset + i);
+            if (--pendingChildren[parent] == 0) {
+                push(parent);
+            }
+        }
+        if (laneTargets[lane] == RESERVED) {
+            laneTargets[lane] = FREE;
+        }
+    }
+
+    /**
+     * @return lane, which expects given graph row, or -1
+     */
+    private int findLane(final int graphRow) {
+        for (int i = 0; i <= maxLane; i++) {
+            if (laneTargets[i] == graphRow) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int freeLane() {
+        for (int i = 0; i < laneTargets.length; i++) {
+            if (laneTargets[i] == FREE) {
+                maxLane = Math.max(maxLane, i);
+                return i;
+            }
+        }
+        final int lane = laneTargets.length;
+        laneTargets = Arrays.copyOf(laneTargets, lane * 2);
+        Arrays.fill(laneTargets, lane, laneTargets.length, FREE);
+        laneLinks = Arrays.copyOf(laneLinks, lane * 2);
+        laneLinkCounts = Arrays.copyOf(laneLinkCounts, lane * 2);
+        maxLane = lane;
+        return lane;
+    }
+
+    private void addLaneLink(final int lane, final int link) {
+        int[] links = laneLinks[lane];
+        if (links == null) {
+            links = laneLinks[lane] = new int[4];
+        } else if (laneLinkCounts[lane] == links.length) {
+            links = laneLinks[lane] = Arrays.copyOf(links, links.length * 2);
+        }
+        links[laneLinkCounts[lane]++] = link;
+    }
+
+    private void saveCheckpoint(final int idx) {
+        int count = 0;
+        for (int i = 0; i <= maxLane; i++) {
+            count += laneLinkCounts[i];
+        }
+        final int[] open = new int[count];
+        int pos = 0;
+        for (int i = 0; i <= maxLane; i++) {
+            if (laneLinkCounts[i] > 0) {
+                System.arraycopy(laneLinks[i], 0, open, pos, laneLinkCounts[i]);
+                pos += laneLinkCounts[i];
+            }
+        }
+        if (idx >= checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        checkpoints[idx] = open;
+    }
+
+    /**
+     * @return amount of laid out rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if all commits were laid out
+     */
+    public boolean isComplete() {
+        return heapSize == 0;
+    }
+
+    public CommitGraph getCommitGraph() {
+        return graph;
+    }
+
+    /**
+     * @param row shown row
+     * @return row of commit in {@link CommitGraph}
+     */
+    public int getGraphRow(final int row) {
+        return graphRows[row];
+    }
+
+    public int getLane(final int row) {
+        return lanes[row];
+    }
+
+    /**
+     * @return the right most lane, which is used so far
+     */
+    public int getMaxLane() {
+        return maxLane;
+    }
+
+    public int getParentCount(final int row) {
+        return parentOffsets[row + 1] - parentOffsets[row];
+    }
+
+    /**
+     * @param link link, see {@link #getLinks(int)}
+     * @return lane, which link follows
+     */
+    public int getLinkLane(final int link) {
+        return linkLanes[link];
+    }
+
+    /**
+     * @param row  shown row
+     * @param link link, see {@link #getLinks(int)}
+     * @return true if link goes from commit of given row
+     */
+    public boolean isLinkFrom(final int row, final int link) {
+        return link >= parentOffsets[row] && link < parentOffsets[row + 1];
+    }
+
+    /**
+     * @param row  shown row
+     * @param link link, see {@link #getLinks(int)}
+     * @return true if link goes to commit of given row
+     */
+    public boolean isLinkTo(final int row, final int link) {
+        return getLinkParentRow(link) == row;
+    }
+
+    /**
+     * @return shown row of parent or {@link Integer#MAX_VALUE}, if parent is not shown yet
+     */
+    private int getLinkParentRow(final int link) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (parentOffsets[mid] <= link) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        final int parentRow = rowByGraphRow[graph.getParent(graphRows[lo], link - parentOffsets[lo])];
+        return parentRow < 0 ? Integer.MAX_VALUE : parentRow;
+    }
+
+    /**
+     * Get links, which start, end or pass given row.
+     *
+     * @param row shown row
+     * @return links
+     */
+    public int[] getLinks(final int row) {
+        final int base = row - row % CHECKPOINT;
+        final int[] open = checkpoints[row / CHECKPOINT];
+        int[] rez = new int[open.length + parentOffsets[row + 1] - parentOffsets[base]];
+        int count = 0;
+        for (int link : open) {
+            if (getLinkParentRow(link) >= row) {
+                rez[count++] = link;
+            }
+        }
+        for (int link = parentOffsets[base]; link < parentOffsets[row + 1]; link++) {
+            if (getLinkParentRow(link) >= row) {
+                rez[count++] = link;
+            }
+        }
+        return count == rez.length ? rez : Arrays.copyOf(rez, count);
+    }
+
+    /**
+     * @return approximate amount of memory used by layout, bytes
+     */
+    public long getMemoryUsage() {
+        long rez = 4L * (rowByGraphRow.length + pendingChildren.length + heap.length
+                + graphRows.length + lanes.length + parentOffsets.length + linkLanes.length);
+        for (int[] checkpoint : checkpoints) {
+            if (checkpoint != null) {
+                rez += 16 + 4L * checkpoint.length;
+            }
+        }
+        return rez;
+    }
+
+    /**
+     * Newer commit goes first, commit added to graph later wins in case of the same time.
+     */
+    private boolean before(final int row1, final int row2) {
+        final int t1 = graph.getCommitTime(row1);
+        final int t2 = graph.getCommitTime(row2);
+        return t1 > t2 || (t1 == t2 && row1 > row2);
+    }
+
+    private void push(final int row) {
+        int idx = heapSize++;
+        while (idx > 0) {
+            final int parentIdx = (idx - 1) >>> 1;
+            if (!before(row, heap[parentIdx])) {
+                break;
+            }
+            heap[idx] = heap[parentIdx];
+            idx = parentIdx;
+        }
+        heap[idx] = row;
+    }
+
+    private int poll() {
+        final int top = heap[0];
+        final int last = heap[--heapSize];
+        int idx = 0;
+        while (true) {
+            int child = 2 * idx + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], last)) {
+                break;
+            }
+            heap[idx] = heap[child];
+            idx = child;
+        }
+        if (heapSize > 0) {
+            heap[idx] = last;
+        }
+        return top;
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.az.gitember.scm.impl.git;
+
+import com.az.gitember.misc.GitemberUtil;
+import com.az.gitember.misc.ScmHotspot;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Files of HEAD, which are changed most often. History is walked once over commit graph,
+ * each commit is compared with its first parent and for each changed file of HEAD amount of changes,
+ * distinct authors and time of the last change are counted. Commits are split into ranges,
+ * which are counted in parallel.
+ */
+class HotspotAnalysis {
+
+    private static final int RANGE_SIZE = 256;
+
+    private static class PathStat {
+
+        int changes;
+
+        int lastChange = Integer.MIN_VALUE;
+
+        final BitSet authors = new BitSet();
+
+        void add(final PathStat other) {
+            changes += other.changes;
+            lastChange = Math.max(lastChange, other.lastChange);
+            authors.or(other.authors);
+        }
+    }
+
+    private final Repository repository;
+
+    private final CommitGraph graph;
+
+    private final LineCounter lineCounter;
+
+    private final int threads;
+
+    HotspotAnalysis(final Repository repository,
+                    final CommitGraph graph,
+                    final LineCounter lineCounter,
+                    final int threads) {
+        this.repository = repository;
+        this.graph = graph;
+        this.lineCounter = lineCounter;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param commit          the last commit
+     * @param progressMonitor progress monitor, analysis is stopped if it is cancelled
+     * @return text files of commit sorted by score, the highest first
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    List<ScmHotspot> analyze(final AnyObjectId commit,
+                             final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final int start = graph.find(commit);
+        if (start < 0) {
+            throw new IOException("Commit " + commit.getName() + " is not in commit graph");
+        }
+        final Map<String, Integer> lines = getLines(graph.getTreeId(start));
+        final int[] rows = graph.getHistory(start);
+        final Map<String, PathStat> total = new HashMap<>();
+        final RangeExecutor executor = new RangeExecutor("hotspots", threads, RANGE_SIZE);
+        executor.run(
+                "Hotspots",
+                0,
+                rows.length,
+                (from, to) -> countRange(rows, from, to, lines.keySet(), executor),
+                counted -> counted.forEach((path, stat) -> total.computeIfAbsent(path, p -> new PathStat()).add(stat)),
+                progressMonitor);
+
+        final List<ScmHotspot> rez = new ArrayList<>(total.size());
+        total.forEach((path, stat) -> rez.add(new ScmHotspot(
+                path,
+                stat.changes,
+                stat.authors.cardinality(),
+                GitemberUtil.intToDate(stat.lastChange),
+                lines.get(path))));
+        rez.sort(Comparator.comparingLong(ScmHotspot::getScore).reversed());
+        return rez;
+    }
+
+    private Map<String, PathStat> countRange(final int[] rows,
+                                             final int from,
+                                             final int to,
+                                             final Set<String> paths,
+                                             final RangeExecutor executor) throws IOException {
+        final Map<String, PathStat> rez = new HashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (int i = from; i < to && !executor.isCancelled(); i++) {
+                final int row = rows[i];
+                treeWalk.reset();
+                if (graph.getParentCount(row) == 0) {
+                    treeWalk.addTree(new EmptyTreeIterator());
+                } else {
+                    treeWalk.addTree(graph.getTreeId(graph.getParent(row, 0)));
+                }
+                treeWalk.addTree(graph.getTreeId(row));
+                while (treeWalk.next()) {
+                    final String path = treeWalk.getPathString();
+                    if (paths.contains(path)) {
+                        final PathStat stat = rez.computeIfAbsent(path, p -> new PathStat());
+                        stat.changes++;
+                        stat.lastChange = Math.max(stat.lastChange, graph.getCommitTime(row));
+                        stat.authors.set(graph.getAuthorIndex(row));
+                    }
+                }
+            }
+        }
+        return rez;
+    }
+
+    /**
+     * @return amount of lines of each text file in tree
+     */
+    private Map<String, Integer> getLines(final ObjectId treeId) throws IOException {
+        final Map<String, Integer> rez = new HashMap<>();
+        try (ObjectReader reader = repository.newObjectReader();
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(treeId);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB) {
+                    final int cnt = lineCounter.count(reader, treeWalk.getObjectId(0));
+                    if (cnt >= 0) {
+                        rez.put(treeWalk.getPathString(), cnt);
+                    }
+                }
+            }
+        }
+        return rez;
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuildIterator;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index changes of many files, which are applied together. Index is locked, read and written once
+ * and all files are handled by single tree walk over index, work tree and HEAD, untouched index entries
+ * are copied as is. Each file gets one operation, the last one wins.
+ */
+public class IndexBatch {
+
+    private static final int INDEX = 0;
+
+    private static final int WORKDIR = 1;
+
+    private static final int HEAD = 2;
+
+    private enum Operation {
+        ADD,
+        REMOVE,
+        RESET,
+        CHECKOUT
+    }
+
+    private final Repository repository;
+
+    private final Map<String, Operation> operations = new HashMap<>();
+
+    IndexBatch(final Repository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Stage file content from work tree, like git add. Conflict of file is resolved.
+     *
+     * @param path file path
+     * @return this batch
+     */
+    public IndexBatch add(final String path) {
+        operations.put(path, Operation.ADD);
+        return this;
+    }
+
+    /**
+     * Stage removal of missing file, like git rm. File, which still exists in work tree, is not removed.
+     *
+     * @param path file path
+     * @return this batch
+     */
+    public IndexBatch remove(final String path) {
+        operations.put(path, Operation.REMOVE);
+        return this;
+    }
+
+    /**
+     * Unstage file, index gets file from HEAD, like git reset HEAD.
+     *
+     * @param path file path
+     * @return this batch
+     */
+    public IndexBatch reset(final String path) {
+        operations.put(path, Operation.RESET);
+        return this;
+    }
+
+    /**
+     * Revert file in work tree to staged content, like git checkout.
+     *
+     * @param path file path
+     * @return this batch
+     */
+    public IndexBatch checkout(final String path) {
+        operations.put(path, Operation.CHECKOUT);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Apply all operations under one index lock.
+     *
+     * @throws IOException in case of read or write errors, index is not changed in this case
+     */
+    public void apply() throws IOException {
+        if (operations.isEmpty()) {
+            return;
+        }
+        final DirCache dirCache = repository.lockDirCache();
+        try (ObjectInserter inserter = repository.newObjectInserter();
+             TreeWalk treeWalk = new TreeWalk(repository, inserter.newReader())) {
+            final DirCacheBuilder builder = dirCache.builder();
+            treeWalk.setOperationType(TreeWalk.OperationType.CHECKIN_OP);
+            treeWalk.setRecursive(true);
+            treeWalk.addTree(new DirCacheBuildIterator(builder));
+            final FileTreeIterator workingTreeIterator = new FileTreeIterator(repository);
+            treeWalk.addTree(workingTreeIterator);
+            workingTreeIterator.setDirCacheIterator(treeWalk, INDEX);
+            final ObjectId headTree = repository.resolve(Constants.HEAD + "^{tree}");
+            if (headTree == null) {
+                treeWalk.addTree(new EmptyTreeIterator());
+            } else {
+                treeWalk.addTree(headTree);
+            }
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(operations.keySet()));
+
+            String previousPath = null;
+            boolean keepStages = true;
+            while (treeWalk.next()) {
+                final String path = treeWalk.getPathString();
+                final DirCacheIterator index = treeWalk.getTree(INDEX, DirCacheIterator.class);
+                final DirCacheEntry entry = index == null ? null : index.getDirCacheEntry();
+                if (path.equals(previousPath)) {
+                    // the rest of conflict stages, they follow decision made for the first one
+                    if (keepStages) {
+                        keep(builder, entry);
+                    }
+                    continue;
+                }
+                previousPath = path;
+                keepStages = true;
+                final WorkingTreeIterator workdir = treeWalk.getTree(WORKDIR, WorkingTreeIterator.class);
+                switch (getOperation(path)) {
+                    case ADD:
+                        if (workdir == null || workdir.getEntryFileMode() == FileMode.GITLINK) {
+                            keep(builder, entry);
+                        } else if (entry != null || !workdir.isEntryIgnored()) {
+                            builder.add(createEntry(treeWalk, workdir, index, entry, inserter));
+                            keepStages = false;
+                        }
+                        break;
+                    case REMOVE:
+                        keepStages = workdir != null;
+                        if (keepStages) {
+                            keep(builder, entry);
+                        }
+                        break;
+                    case RESET:
+                        final AbstractTreeIterator head = treeWalk.getTree(HEAD, AbstractTreeIterator.class);
+                        if (head != null) {
+                            final DirCacheEntry headEntry = new DirCacheEntry(treeWalk.getRawPath());
+                            headEntry.setFileMode(head.getEntryFileMode());
+                            headEntry.setObjectId(head.getEntryObjectId());
+                            builder.add(headEntry);
+                        }
+                        keepStages = false;
+                        break;
+                    case CHECKOUT:
+                        if (entry != null && entry.getStage() == DirCacheEntry.STAGE_0
+                                && entry.getFileMode() != FileMode.GITLINK) {
+                            DirCacheCheckout.checkoutEntry(repository, entry, treeWalk.getObjectReader(), true,
+                                    new DirCacheCheckout.CheckoutMetadata(
+                                            treeWalk.getEolStreamType(TreeWalk.OperationType.CHECKOUT_OP),
+                                            treeWalk.getFilterCommand(Constants.ATTR_FILTER_TYPE_SMUDGE)));
+                        }
+                        keep(builder, entry);
+                        break;
+                }
+            }
+            inserter.flush();
+            builder.commit();
+        } finally {
+            dirCache.unlock();
+        }
+    }
+
+    /**
+     * @return operation of path or of its folder
+     */
+    private Operation getOperation(final String path) {
+        Operation operation = operations.get(path);
+        for (int slash = path.lastIndexOf('/'); operation == null && slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+            operation = operations.get(path.substring(0, slash));
+        }
+        return operation;
+    }
+
+    private static void keep(final DirCacheBuilder builder, final DirCacheEntry entry) {
+        if (entry != null) {
+            builder.add(entry);
+        }
+    }
+
+    /**
+     * Stage 0 entry with work tree content, the same way as add command does.
+     */
+    private static DirCacheEntry createEntry(final TreeWalk treeWalk,
+                                             final WorkingTreeIterator workdir,
+                                             final DirCacheIterator index,
+                                             final DirCacheEntry entry,
+                                             final ObjectInserter inserter) throws IOException {
+        if (entry != null && entry.getStage() == DirCacheEntry.STAGE_0
+                && !workdir.isModified(entry, true, treeWalk.getObjectReader())) {
+            return entry;
+        }
+        final DirCacheEntry rez = new DirCacheEntry(treeWalk.getRawPath());
+        rez.setFileMode(workdir.getIndexFileMode(index));
+        rez.setLength(workdir.getEntryLength());
+        rez.setLastModified(workdir.getEntryLastModified());
+        try (InputStream in = workdir.openEntryStream()) {
+            rez.setObjectId(inserter.insert(Constants.OBJ_BLOB, workdir.getEntryContentLength(), in));
+        }
+        return rez;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Amount of lines in blobs. Blob bytes are counted as is, without decoding to characters, binary content
+ * is detected on the first chunk, large blobs are streamed. Blob can not change, so result is memoized by blob id and
+ * the same file in other commits or trees is not read again. Blob larger than size limit is not read at all,
+ * its size is taken from object header.
+ */
+public class LineCounter {
+
+    /**
+     * Binary blob.
+     */
+    public static final int SKIPPED = -1;
+
+    /**
+     * Blob is larger than size limit, it is skipped as well as binary one.
+     */
+    public static final int TOO_LARGE = -2;
+
+    private static final int MAX_MEMOIZED = 200_000;
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Map<ObjectId, Integer> lines = new ConcurrentHashMap<>();
+
+    private volatile long maxSize;
+
+    /**
+     * @param maxSize larger blobs are not counted
+     */
+    public LineCounter(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param maxSize larger blobs are not counted. Memoized counts are forgotten, if limit is lowered
+     */
+    public void setMaxSize(final long maxSize) {
+        if (maxSize < this.maxSize) {
+            lines.clear();
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param reader object reader
+     * @param blobId blob
+     * @return amount of lines, {@link #SKIPPED} for binary blobs or {@link #TOO_LARGE} for blobs
+     * larger than size limit
+     * @throws IOException in case of read errors
+     */
+    public int count(final ObjectReader reader, final AnyObjectId blobId) throws IOException {
+        final Integer memoized = lines.get(blobId);
+        if (memoized != null) {
+            return memoized;
+        }
+        if (reader.getObjectSize(blobId, Constants.OBJ_BLOB) > maxSize) {
+            return TOO_LARGE;
+        }
+        final ObjectLoader loader = reader.open(blobId, Constants.OBJ_BLOB);
+        final int rez;
+        if (loader.isLarge()) {
+            rez = count(loader);
+        } else {
+            final byte[] bytes = loader.getCachedBytes();
+            if (RawText.isBinary(bytes, Math.min(bytes.length, CHUNK_SIZE))) {
+                rez = SKIPPED;
+            } else {
+                rez = countLineFeeds(bytes, bytes.length) + (bytes.length == 0 || bytes[bytes.length - 1] == '\n' ? 0 : 1);
+            }
+        }
+        if (lines.size() < MAX_MEMOIZED) {
+            lines.put(blobId.copy(), rez);
+        }
+        return rez;
+    }
+
+    private static int count(final ObjectLoader loader) throws IOException {
+        final byte[] buf = new byte[CHUNK_SIZE];
+        int rez = 0;
+        boolean first = true;
+        byte last = '\n';
+        try (ObjectStream in = loader.openStream()) {
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                if (first && RawText.isBinary(buf, len)) {
+                    return SKIPPED;
+                }
+                first = false;
+                rez += countLineFeeds(buf, len);
+                last = buf[len - 1];
+            }
+        }
+        return last == '\n' ? rez : rez + 1;
+    }
+
+    private static int countLineFeeds(final byte[] bytes, final int len) {
+        int rez = 0;
+        for (int i = 0; i < len; i++) {
+            if (bytes[i] == '\n') {
+                rez++;
+            }
+        }
+        return rez;
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.az.gitember.scm.impl.git;
+
+import com.az.gitember.misc.ScmOwnership;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Code ownership over time. History of the first parent chain of commit is sampled by periods,
+ * commit of each period is found by binary search over commit times. Files of sampled commit are blamed
+ * by {@link ParallelBlame}, but only if file content differs from the previous sample and is not
+ * known to {@link BlameStatCache}, otherwise lines per author are reused. Binary, empty and too large files are
+ * not blamed, {@link LineCounter} knows them by blob id, so the same tree in the next sample is not read again.
+ */
+class OwnershipTimeline {
+
+    private final static Logger log = Logger.getLogger(OwnershipTimeline.class.getName());
+
+    private static final int WEEK = 7 * 24 * 60 * 60;
+
+    /**
+     * Period is made longer than week, if history is too long for weekly samples.
+     */
+    private static final int MAX_PERIODS = 104;
+
+    private static class FileLines {
+
+        final ObjectId blobId;
+
+        final Map<String, Integer> lines;
+
+        FileLines(final ObjectId blobId, final Map<String, Integer> lines) {
+            this.blobId = blobId;
+            this.lines = lines;
+        }
+    }
+
+    private final Repository repository;
+
+    private final CommitGraph graph;
+
+    private final BlameStatCache blameStatCache;
+
+    private final LineCounter lineCounter;
+
+    private final ParallelBlame parallelBlame;
+
+    /**
+     * Files of any sample, which are not blamed because of size.
+     */
+    private final Set<String> tooLarge = new TreeSet<>();
+
+    /**
+     * @param lineCounter files, which it skips as binary or too large, are not blamed
+     */
+    OwnershipTimeline(final Repository repository,
+                      final CommitGraph graph,
+                      final BlameStatCache blameStatCache,
+                      final LineCounter lineCounter,
+                      final int threads) {
+        this.repository = repository;
+        this.graph = graph;
+        this.blameStatCache = blameStatCache;
+        this.lineCounter = lineCounter;
+        this.parallelBlame = new ParallelBlame(repository, threads);
+    }
+
+    /**
+     * @param commit          the last commit
+     * @param progressMonitor progress monitor, computation is stopped if it is cancelled
+     * @return lines per author by period
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    ScmOwnership compute(final AnyObjectId commit,
+                         final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final int[] chain = getFirstParentChain(commit);
+        final int[] times = new int[chain.length];
+        for (int i = 0; i < chain.length; i++) {
+            // commit time may go back, when commits were rebased, keep it ascending for search
+            times[i] = Math.max(i == 0 ? Integer.MIN_VALUE : times[i - 1], graph.getCommitTime(chain[i]));
+        }
+        final int first = times[0];
+        final int last = times[times.length - 1];
+        final int period = Math.max(WEEK, (int) ((last - (long) first) / MAX_PERIODS / WEEK + 1) * WEEK);
+        final int periodCount = (int) ((last - (long) first) / period) + 1;
+
+        final int[] periodTimes = new int[periodCount];
+        final List<Map<String, Integer>> periodLines = new ArrayList<>();
+        final Map<String, FileLines> known = new HashMap<>();
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        int sampled = -1;
+        Map<String, Integer> sampledLines = new TreeMap<>();
+        for (int p = 0; p < periodCount && !progressMonitor.isCancelled(); p++) {
+            periodTimes[p] = first + p * period;
+            final int idx = floor(times, p == periodCount - 1 ? last : periodTimes[p]);
+            if (idx != sampled) {
+                sampled = idx;
+                parallelBlame.setTitle("Ownership " + dateFormat.format(graph.getCommitTime(chain[idx]) * 1000L)
+                        + " (" + (p + 1) + " of " + periodCount + ")");
+                sampledLines = sample(graph.getId(chain[idx]), graph.getTreeId(chain[idx]), known, progressMonitor);
+            }
+            periodLines.add(sampledLines);
+        }
+        if (!tooLarge.isEmpty()) {
+            log.log(Level.INFO, "Files larger than " + lineCounter.getMaxSize() + " bytes are not blamed: " + tooLarge);
+        }
+
+        final TreeSet<String> authorSet = new TreeSet<>();
+        periodLines.forEach(m -> authorSet.addAll(m.keySet()));
+        final List<String> authors = new ArrayList<>(authorSet);
+        final int[][] lines = new int[periodLines.size()][authors.size()];
+        for (int p = 0; p < periodLines.size(); p++) {
+            for (int a = 0; a < authors.size(); a++) {
+                lines[p][a] = periodLines.get(p).getOrDefault(authors.get(a), 0);
+            }
+        }
+        return new ScmOwnership(Arrays.copyOf(periodTimes, periodLines.size()), authors, lines);
+    }
+
+    /**
+     * Count lines per author in sampled commit and replace known files with files of this commit.
+     */
+    private Map<String, Integer> sample(final ObjectId commitId,
+                                        final ObjectId treeId,
+                                        final Map<String, FileLines> known,
+                                        final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final Map<String, ObjectId> blobIds = new HashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(treeId);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (treeWalk.getFileMode(0) != FileMode.GITLINK) {
+                    final int lines = lineCounter.count(treeWalk.getObjectReader(), treeWalk.getObjectId(0));
+                    if (lines == LineCounter.TOO_LARGE) {
+                        tooLarge.add(treeWalk.getPathString());
+                    } else if (lines > 0) {
+                        blobIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+                    }
+                }
+            }
+        }
+        known.keySet().retainAll(blobIds.keySet());
+
+        final Map<String, Integer> rez = new TreeMap<>();
+        final List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, ObjectId> entry : blobIds.entrySet()) {
+            FileLines fileLines = known.get(entry.getKey());
+            if (fileLines == null || !fileLines.blobId.equals(entry.getValue())) {
+                final Map<String, Integer> cached = blameStatCache.get(entry.getKey(), entry.getValue());
+                fileLines = cached == null ? null : new FileLines(entry.getValue(), cached);
+            }
+            if (fileLines == null) {
+                changed.add(entry.getKey());
+            } else {
+                known.put(entry.getKey(), fileLines);
+                fileLines.lines.forEach((author, cnt) -> rez.merge(author, cnt, Integer::sum));
+            }
+        }
+
+        final Map<String, FileLines> blamed = new ConcurrentHashMap<>();
+        parallelBlame.blame(
+                commitId,
+                changed,
+                (path, lines) -> blamed.put(path, new FileLines(blobIds.get(path), lines)),
+                progressMonitor
+        ).forEach((author, cnt) -> rez.merge(author, cnt, Integer::sum));
+        known.putAll(blamed);
+        return rez;
+    }
+
+    private int[] getFirstParentChain(final AnyObjectId commit) throws IOException {
+        int row = graph.find(commit);
+        if (row < 0) {
+            throw new IOException("Commit " + commit.getName() + " is not in commit graph");
+        }
+        int[] chain = new int[64];
+        int size = 0;
+        while (true) {
+            if (size == chain.length) {
+                chain = Arrays.copyOf(chain, size * 2);
+            }
+            chain[size++] = row;
+            if (graph.getParentCount(row) == 0) {
+                break;
+            }
+            row = graph.getParent(row, 0);
+        }
+        final int[] rez = new int[size];
+        for (int i = 0; i < size; i++) {
+            rez[i] = chain[size - 1 - i];
+        }
+        return rez;
+    }
+
+    /**
+     * @return index of the last commit with time not after given one, 0 if all commits are later
+     */
+    private static int floor(final int[] times, final int time) {
+        int lo = 0;
+        int hi = times.length - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (times[mid] <= time) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.blame.BlameGenerator;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Blame of many files by pool of workers. Files are taken by workers one by one,
+ * so long file does not hold back the rest of files. Each worker counts lines per author of the file, counts are
+ * added to total by the caller thread. Blame regions are counted directly, without building of blame result per line.
+ *
+ * Progress is reported from the caller thread only.
+ */
+class ParallelBlame {
+
+    private final static Logger log = Logger.getLogger(ParallelBlame.class.getName());
+
+    private final Repository repository;
+
+    private final int threads;
+
+    private String title = "Blame";
+
+    private Consumer<Map<String, Integer>> snapshotConsumer = null;
+
+    /**
+     * @param repository repository
+     * @param threads    amount of workers
+     */
+    ParallelBlame(final Repository repository, final int threads) {
+        this.repository = repository;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param title task title for progress monitor
+     */
+    void setTitle(final String title) {
+        this.title = title;
+    }
+
+    /**
+     * @param snapshotConsumer receives lines per author counted so far, called from the caller thread
+     *                         together with progress update, if some files were blamed since the last call
+     */
+    void setSnapshotConsumer(final Consumer<Map<String, Integer>> snapshotConsumer) {
+        this.snapshotConsumer = snapshotConsumer;
+    }
+
+    /**
+     * Count lines of files per author of last change.
+     *
+     * @param commit          commit to blame
+     * @param files           files in commit
+     * @param fileConsumer    receives lines per author of each blamed file, called from worker threads
+     * @param progressMonitor progress monitor, blame is stopped if it is cancelled
+     * @return amount of lines per author, sorted by author
+     * @throws IOException in case of read errors
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    Map<String, Integer> blame(final AnyObjectId commit,
+                               final List<String> files,
+                               final BiConsumer<String, Map<String, Integer>> fileConsumer,
+                               final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        final ObjectId startCommit = commit.copy();
+        final Map<String, Integer> total = new TreeMap<>();
+        final AtomicBoolean changed = new AtomicBoolean();
+        final RangeExecutor executor = new RangeExecutor("blame", threads, 1);
+        if (snapshotConsumer != null) {
+            executor.setProgressListener(() -> {
+                if (changed.getAndSet(false)) {
+                    snapshotConsumer.accept(new TreeMap<>(total));
+                }
+            });
+        }
+        executor.run(
+                title,
+                0,
+                files.size(),
+                (from, to) -> {
+                    final Map<String, Integer> rez = new HashMap<>();
+                    for (int i = from; i < to && !executor.isCancelled(); i++) {
+                        final Map<String, Integer> lines = new HashMap<>();
+                        if (countLines(startCommit, files.get(i), lines, executor)) {
+                            fileConsumer.accept(files.get(i), lines);
+                            lines.forEach((author, cnt) -> rez.merge(author, cnt, Integer::sum));
+                        }
+                    }
+                    return rez;
+                },
+                lines -> {
+                    lines.forEach((author, cnt) -> total.merge(author, cnt, Integer::sum));
+                    changed.set(true);
+                },
+                progressMonitor);
+        return total;
+    }
+
+    /**
+     * @return false if file can not be blamed or blame was cancelled
+     */
+    private boolean countLines(final ObjectId commit,
+                               final String path,
+                               final Map<String, Integer> lines,
+                               final RangeExecutor executor) {
+        try (BlameGenerator generator = new BlameGenerator(repository, path)) {
+            generator.push(null, commit);
+            while (generator.next()) {
+                if (executor.isCancelled()) {
+                    // history of long file may be walked for a long time, partial counts are dropped
+                    lines.clear();
+                    return false;
+                }
+                lines.merge(generator.getSourceAuthor().getName(), generator.getRegionLength(), Integer::sum);
+            }
+            return true;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot blame " + path, e);
+            lines.clear();
+            return false;
+        }
+    }
+
+}
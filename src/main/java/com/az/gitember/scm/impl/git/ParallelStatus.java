@@ -0,0 +1,573 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.IndexDiffFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.SkipWorkTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Status of working copy, computed by pool of workers. Entries of work tree root are split into partitions
+ * with about the same amount of index entries and each partition is compared with HEAD and index by own tree walk.
+ * Walks use the same filters as {@link IndexDiff}, so only racily clean and stat dirty files are hashed.
+ * Index is read once and shared by all walks, result is the usual JGit status.
+ * Untracked directories, which were not changed since the previous status, are taken from {@link UntrackedCache}
+ * and are not listed.
+ *
+ * Repository with submodules is handed over to status command, because state of submodule
+ * is read from its own repository.
+ */
+class ParallelStatus {
+
+    private static final int TREE = 0;
+
+    private static final int INDEX = 1;
+
+    private static final int WORKDIR = 2;
+
+    /**
+     * More partitions than workers, so large directory does not hold back the rest of them.
+     */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * Statuses of partition, returned by the same getters as statuses of index diff.
+     */
+    private static class Result extends IndexDiff {
+
+        final Set<String> added = new HashSet<>();
+
+        final Set<String> changed = new HashSet<>();
+
+        final Set<String> removed = new HashSet<>();
+
+        final Set<String> missing = new HashSet<>();
+
+        final Set<String> modified = new HashSet<>();
+
+        final Set<String> untracked = new HashSet<>();
+
+        final Set<String> untrackedFolders = new HashSet<>();
+
+        final Set<String> ignored = new HashSet<>();
+
+        final Map<String, StageState> conflicts = new HashMap<>();
+
+        Result(final Repository repository) throws IOException {
+            super(repository, (ObjectId) null, new FileTreeIterator(repository));
+        }
+
+        void addAll(final Result other) {
+            added.addAll(other.added);
+            changed.addAll(other.changed);
+            removed.addAll(other.removed);
+            missing.addAll(other.missing);
+            modified.addAll(other.modified);
+            untracked.addAll(other.untracked);
+            untrackedFolders.addAll(other.untrackedFolders);
+            ignored.addAll(other.ignored);
+            conflicts.putAll(other.conflicts);
+        }
+
+        @Override
+        public Set<String> getAdded() {
+            return added;
+        }
+
+        @Override
+        public Set<String> getChanged() {
+            return changed;
+        }
+
+        @Override
+        public Set<String> getRemoved() {
+            return removed;
+        }
+
+        @Override
+        public Set<String> getMissing() {
+            return missing;
+        }
+
+        @Override
+        public Set<String> getModified() {
+            return modified;
+        }
+
+        @Override
+        public Set<String> getUntracked() {
+            return untracked;
+        }
+
+        @Override
+        public Set<String> getConflicting() {
+            return conflicts.keySet();
+        }
+
+        @Override
+        public Map<String, StageState> getConflictingStageStates() {
+            return conflicts;
+        }
+
+        @Override
+        public Set<String> getIgnoredNotInIndex() {
+            return ignored;
+        }
+
+        @Override
+        public Set<String> getUntrackedFolders() {
+            return untrackedFolders;
+        }
+    }
+
+    private final Repository repository;
+
+    private final UntrackedCache untrackedCache;
+
+    private final int threads;
+
+    ParallelStatus(final Repository repository, final UntrackedCache untrackedCache, final int threads) {
+        this.repository = repository;
+        this.untrackedCache = untrackedCache;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @return status of the whole working copy
+     * @throws IOException in case of read errors
+     * @throws GitAPIException in case of status command errors
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    Status call() throws IOException, GitAPIException, InterruptedException {
+        final DirCache dirCache = repository.readDirCache();
+        final ObjectId headTree = repository.resolve(Constants.HEAD + "^{tree}");
+        final Map<String, Integer> weights = new TreeMap<>();
+        if (!countIndexEntries(dirCache, weights)) {
+            try (Git git = new Git(repository)) {
+                return git.status().call();
+            }
+        }
+        if (headTree != null) {
+            try (TreeWalk treeWalk = new TreeWalk(repository)) {
+                treeWalk.addTree(headTree);
+                while (treeWalk.next()) {
+                    weights.merge(treeWalk.getPathString(), 1, Integer::sum);
+                }
+            }
+        }
+        final String[] names = repository.getWorkTree().list();
+        if (names != null) {
+            for (String name : names) {
+                if (!Constants.DOT_GIT.equals(name)) {
+                    weights.merge(name, 1, Integer::sum);
+                }
+            }
+        }
+
+        // cache tree is built by the first iterator, walks must find it ready
+        dirCache.getCacheTree(true);
+
+        final long time = System.currentTimeMillis();
+        final long ignoreHash = getRepositoryIgnoreHash();
+        final Set<String> untrackedDirs = ConcurrentHashMap.newKeySet();
+        final Result total = new Result(repository);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread th = new Thread(r, "status");
+            th.setDaemon(true);
+            return th;
+        });
+        try {
+            final CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+            final List<List<String>> partitions = split(weights);
+            for (List<String> partition : partitions) {
+                completionService.submit(() -> diff(dirCache, headTree, partition,
+                        new UntrackedFilter(ignoreHash, untrackedDirs, time)));
+            }
+            for (int i = 0; i < partitions.size(); i++) {
+                try {
+                    total.addAll(completionService.take().get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Cannot read status", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        untrackedCache.retain(untrackedDirs);
+        untrackedCache.store();
+        return new Status(total);
+    }
+
+    /**
+     * @return hash of ignore rules of repository and user, the same files are read by working tree iterator
+     */
+    private long getRepositoryIgnoreHash() {
+        final FS fs = repository.getFS();
+        final File repositoryExcludes = fs.resolve(repository.getDirectory(), Constants.INFO_EXCLUDE);
+        final String excludesFile = repository.getConfig().get(CoreConfig.KEY).getExcludesFile();
+        if (excludesFile == null) {
+            return UntrackedCache.hash(repositoryExcludes);
+        }
+        return UntrackedCache.hash(
+                repositoryExcludes,
+                excludesFile.startsWith("~/")
+                        ? fs.resolve(fs.userHome(), excludesFile.substring(2))
+                        : fs.resolve(null, excludesFile));
+    }
+
+    /**
+     * Count index entries per entry of work tree root. Sorted entries of the same root entry
+     * come one after another, so name is decoded only when it changes.
+     *
+     * @return false if index has submodules
+     */
+    private static boolean countIndexEntries(final DirCache dirCache, final Map<String, Integer> weights) {
+        byte[] prevName = null;
+        String name = null;
+        int count = 0;
+        for (int i = 0; i < dirCache.getEntryCount(); i++) {
+            final DirCacheEntry entry = dirCache.getEntry(i);
+            if (entry.getFileMode() == FileMode.GITLINK) {
+                return false;
+            }
+            final byte[] path = entry.getRawPath();
+            int slash = 0;
+            while (slash < path.length && path[slash] != '/') {
+                slash++;
+            }
+            if (prevName == null || !startsWith(path, slash, prevName)) {
+                if (name != null) {
+                    weights.merge(name, count, Integer::sum);
+                }
+                prevName = Arrays.copyOf(path, slash);
+                name = RawParseUtils.decode(prevName);
+                count = 0;
+            }
+            count++;
+        }
+        if (name != null) {
+            weights.merge(name, count, Integer::sum);
+        }
+        return true;
+    }
+
+    private static boolean startsWith(final byte[] path, final int length, final byte[] prefix) {
+        if (length != prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (path[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split sorted root entries into ranges with about the same weight.
+     */
+    private List<List<String>> split(final Map<String, Integer> weights) {
+        final long total = weights.values().stream().mapToLong(Integer::longValue).sum();
+        final long partitionWeight = Math.max(1, total / (threads * PARTITIONS_PER_THREAD));
+        final List<List<String>> rez = new ArrayList<>();
+        List<String> partition = new ArrayList<>();
+        long weight = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            partition.add(entry.getKey());
+            weight += entry.getValue();
+            if (weight >= partitionWeight) {
+                rez.add(partition);
+                partition = new ArrayList<>();
+                weight = 0;
+            }
+        }
+        if (!partition.isEmpty()) {
+            rez.add(partition);
+        }
+        return rez;
+    }
+
+    /**
+     * Compare HEAD, index and work tree under given root entries in the same way as index diff does.
+     */
+    private Result diff(final DirCache dirCache,
+                        final ObjectId headTree,
+                        final List<String> names,
+                        final UntrackedFilter untrackedFilter) throws IOException {
+        final Result rez = new Result(repository);
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.setOperationType(TreeWalk.OperationType.CHECKIN_OP);
+            treeWalk.setRecursive(true);
+            if (headTree == null) {
+                treeWalk.addTree(new EmptyTreeIterator());
+            } else {
+                treeWalk.addTree(headTree);
+            }
+            treeWalk.addTree(new DirCacheIterator(dirCache));
+            final FileTreeIterator workingTreeIterator = new FileTreeIterator(repository);
+            treeWalk.addTree(workingTreeIterator);
+            workingTreeIterator.setDirCacheIterator(treeWalk, INDEX);
+            final IndexDiffFilter indexDiffFilter = new IndexDiffFilter(INDEX, WORKDIR);
+            treeWalk.setFilter(AndTreeFilter.create(new TreeFilter[]{
+                    PathFilterGroup.createFromStrings(names),
+                    new SkipWorkTreeFilter(INDEX),
+                    untrackedFilter,
+                    indexDiffFilter
+            }));
+
+            final Map<String, Integer> stageMasks = new HashMap<>();
+            while (treeWalk.next()) {
+                final AbstractTreeIterator tree = treeWalk.getTree(TREE, AbstractTreeIterator.class);
+                final DirCacheIterator index = treeWalk.getTree(INDEX, DirCacheIterator.class);
+                final WorkingTreeIterator workdir = treeWalk.getTree(WORKDIR, WorkingTreeIterator.class);
+                final String path = treeWalk.getPathString();
+                if (index != null && index.getDirCacheEntry() != null
+                        && index.getDirCacheEntry().getStage() > 0) {
+                    stageMasks.merge(path, 1 << (index.getDirCacheEntry().getStage() - 1), (a, b) -> a | b);
+                    continue;
+                }
+                if (tree != null) {
+                    if (index == null) {
+                        rez.removed.add(path);
+                        if (workdir != null) {
+                            rez.untracked.add(path);
+                        }
+                    } else if (!tree.idEqual(index) || tree.getEntryRawMode() != index.getEntryRawMode()) {
+                        rez.changed.add(path);
+                    }
+                } else if (index != null) {
+                    rez.added.add(path);
+                } else if (workdir != null && !workdir.isEntryIgnored()) {
+                    rez.untracked.add(path);
+                }
+                if (index != null) {
+                    if (workdir == null) {
+                        rez.missing.add(path);
+                    } else if (workdir.isModified(index.getDirCacheEntry(), true, treeWalk.getObjectReader())) {
+                        rez.modified.add(path);
+                    }
+                }
+            }
+            stageMasks.forEach((path, mask) -> rez.conflicts.put(path, toStageState(mask)));
+            rez.untrackedFolders.addAll(indexDiffFilter.getUntrackedFolders());
+            rez.ignored.addAll(indexDiffFilter.getIgnoredPaths());
+            untrackedFilter.finish(rez);
+        }
+        return rez;
+    }
+
+    /**
+     * Untracked directory, which is listed during walk.
+     */
+    private static class UntrackedDir {
+
+        final String path;
+
+        final long ignoreHash;
+
+        final List<String> dirs = new ArrayList<>();
+
+        final List<Long> lastModified = new ArrayList<>();
+
+        final List<String> ignoreFiles = new ArrayList<>();
+
+        UntrackedDir(final String path, final long ignoreHash) {
+            this.path = path;
+            this.ignoreHash = ignoreHash;
+        }
+
+        void addDir(final String dir, final long modified) {
+            dirs.add(dir);
+            lastModified.add(modified);
+        }
+    }
+
+    /**
+     * Skips untracked directories, which are known to untracked cache and were not changed,
+     * and remembers directories and ignore files of the rest of untracked directories.
+     * Directory is untracked, if it is neither in HEAD nor in index and is not ignored.
+     */
+    private class UntrackedFilter extends TreeFilter {
+
+        private final long repositoryIgnoreHash;
+
+        private final Set<String> untrackedDirs;
+
+        private final long time;
+
+        /**
+         * Hash of ignore rules of directory and its parents.
+         */
+        private final Map<String, Long> ignoreHashes = new HashMap<>();
+
+        private final List<UntrackedCache.Entry> cached = new ArrayList<>();
+
+        private final List<UntrackedDir> listed = new ArrayList<>();
+
+        private UntrackedDir current = null;
+
+        UntrackedFilter(final long repositoryIgnoreHash, final Set<String> untrackedDirs, final long time) {
+            this.repositoryIgnoreHash = repositoryIgnoreHash;
+            this.untrackedDirs = untrackedDirs;
+            this.time = time;
+        }
+
+        @Override
+        public boolean include(final TreeWalk walker) throws IOException {
+            final String path = walker.getPathString();
+            if (current != null && !path.startsWith(current.path + "/")) {
+                current = null;
+            }
+            if (!walker.isSubtree()) {
+                if (current != null && Constants.GITIGNORE_FILENAME.equals(walker.getNameString())) {
+                    current.ignoreFiles.add(path);
+                }
+                return true;
+            }
+            final WorkingTreeIterator workdir = walker.getTree(WORKDIR, WorkingTreeIterator.class);
+            if (workdir == null || workdir.isEntryIgnored()) {
+                return true;
+            }
+            if (current != null) {
+                current.addDir(path, workdir.getEntryLastModified());
+                return true;
+            }
+            if (walker.getRawMode(TREE) != 0 || walker.getRawMode(INDEX) != 0) {
+                return true;
+            }
+            untrackedDirs.add(path);
+            final long ignoreHash = getIgnoreHash(path.lastIndexOf('/') < 0 ? "" : path.substring(0, path.lastIndexOf('/')));
+            final UntrackedCache.Entry entry = untrackedCache.get(path);
+            if (entry != null && entry.isValid(repository.getWorkTree(), ignoreHash)) {
+                cached.add(entry);
+                return false;
+            }
+            current = new UntrackedDir(path, ignoreHash);
+            current.addDir(path, workdir.getEntryLastModified());
+            listed.add(current);
+            return true;
+        }
+
+        /**
+         * Add cached untracked directories to result and cache listed ones.
+         */
+        void finish(final Result rez) {
+            for (UntrackedCache.Entry entry : cached) {
+                rez.untracked.addAll(Arrays.asList(entry.untracked));
+                rez.untrackedFolders.addAll(Arrays.asList(entry.untrackedFolders));
+                rez.ignored.addAll(Arrays.asList(entry.ignored));
+            }
+            if (listed.isEmpty()) {
+                return;
+            }
+            final TreeSet<String> untracked = new TreeSet<>(rez.untracked);
+            final TreeSet<String> untrackedFolders = new TreeSet<>(rez.untrackedFolders);
+            final TreeSet<String> ignored = new TreeSet<>(rez.ignored);
+            for (UntrackedDir dir : listed) {
+                final long[] lastModified = new long[dir.lastModified.size()];
+                for (int i = 0; i < lastModified.length; i++) {
+                    lastModified[i] = dir.lastModified.get(i);
+                }
+                final File[] ignoreFiles = dir.ignoreFiles.stream()
+                        .map(f -> new File(repository.getWorkTree(), f))
+                        .toArray(File[]::new);
+                final UntrackedCache.Entry entry = new UntrackedCache.Entry(
+                        dir.ignoreHash,
+                        dir.dirs.toArray(new String[0]),
+                        lastModified,
+                        dir.ignoreFiles.toArray(new String[0]),
+                        UntrackedCache.hash(ignoreFiles),
+                        getUnder(untracked, dir.path),
+                        getUnder(untrackedFolders, dir.path),
+                        getUnder(ignored, dir.path));
+                if (entry.isStable(time)) {
+                    untrackedCache.put(dir.path, entry);
+                }
+            }
+        }
+
+        private long getIgnoreHash(final String dir) {
+            Long hash = ignoreHashes.get(dir);
+            if (hash == null) {
+                final long parentHash = dir.isEmpty()
+                        ? repositoryIgnoreHash
+                        : getIgnoreHash(dir.lastIndexOf('/') < 0 ? "" : dir.substring(0, dir.lastIndexOf('/')));
+                hash = UntrackedCache.hash(parentHash,
+                        new File(new File(repository.getWorkTree(), dir), Constants.GITIGNORE_FILENAME));
+                ignoreHashes.put(dir, hash);
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+    }
+
+    /**
+     * @return given path and paths under it
+     */
+    private static String[] getUnder(final TreeSet<String> paths, final String path) {
+        final List<String> rez = new ArrayList<>();
+        if (paths.contains(path)) {
+            rez.add(path);
+        }
+        rez.addAll(paths.subSet(path + "/", path + "0"));
+        return rez.toArray(new String[0]);
+    }
+
+    private static IndexDiff.StageState toStageState(final int mask) {
+        for (IndexDiff.StageState state : IndexDiff.StageState.values()) {
+            if (state.hasBase() == ((mask & 1) != 0)
+                    && state.hasOurs() == ((mask & 2) != 0)
+                    && state.hasTheirs() == ((mask & 4) != 0)) {
+                return state;
+            }
+        }
+        return IndexDiff.StageState.BOTH_MODIFIED;
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.lib.ProgressMonitor;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Work over range of indexes, which is split into smaller ranges and counted by pool of daemon workers.
+ * Result of each range is merged by the caller thread as soon as range is done.
+ *
+ * Progress is reported and progress monitor is checked for cancellation from the caller thread only,
+ * workers check {@link #isCancelled()} instead.
+ */
+class RangeExecutor {
+
+    private static final long PROGRESS_INTERVAL_MS = 200;
+
+    /**
+     * Work of one range, called from worker thread.
+     *
+     * @param <T> type of range result
+     */
+    @FunctionalInterface
+    interface RangeTask<T> {
+
+        /**
+         * @param from the first index of range, inclusive
+         * @param to   the last index of range, exclusive
+         * @return result of range, which is given to merge function
+         * @throws IOException in case of errors, the whole run fails
+         */
+        T call(int from, int to) throws IOException;
+    }
+
+    private final String threadName;
+
+    private final int threads;
+
+    private final int rangeSize;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private Runnable progressListener = null;
+
+    /**
+     * @param threadName name of worker threads
+     * @param threads    amount of workers
+     * @param rangeSize  amount of indexes in range
+     */
+    RangeExecutor(final String threadName, final int threads, final int rangeSize) {
+        this.threadName = threadName;
+        this.threads = Math.max(1, threads);
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    /**
+     * @param progressListener called from the caller thread after each progress update
+     */
+    void setProgressListener(final Runnable progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @return true if run is cancelled or failed, so workers should stop as soon as they can
+     */
+    boolean isCancelled() {
+        return cancelled.get() || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Run task over all ranges and merge results. If progress monitor is cancelled, the rest of ranges are
+     * stopped and their partial results are merged too.
+     *
+     * @param title           task title for progress monitor
+     * @param from            the first index, inclusive
+     * @param to              the last index, exclusive
+     * @param task            work of one range
+     * @param merger          receives result of each range, called from the caller thread
+     * @param progressMonitor progress monitor, progress is amount of indexes in done ranges
+     * @param <T>             type of range result
+     * @throws IOException in case of task error
+     * @throws InterruptedException if caller thread is interrupted
+     */
+    <T> void run(final String title,
+                 final int from,
+                 final int to,
+                 final RangeTask<T> task,
+                 final Consumer<T> merger,
+                 final ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        cancelled.set(false);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread th = new Thread(r, threadName);
+            th.setDaemon(true);
+            return th;
+        });
+        final AtomicInteger done = new AtomicInteger();
+        progressMonitor.beginTask(title, to - from);
+        try {
+            final CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+            int ranges = 0;
+            for (int rangeFrom = from; rangeFrom < to; rangeFrom += rangeSize) {
+                final int rangeStart = rangeFrom;
+                final int rangeEnd = Math.min(to, rangeFrom + rangeSize);
+                completionService.submit(() -> {
+                    final T rez = task.call(rangeStart, rangeEnd);
+                    done.addAndGet(rangeEnd - rangeStart);
+                    return rez;
+                });
+                ranges++;
+            }
+            long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MS;
+            while (ranges > 0) {
+                final Future<T> future = completionService.poll(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (future != null) {
+                    ranges--;
+                    try {
+                        merger.accept(future.get());
+                    } catch (ExecutionException e) {
+                        throw new IOException("Cannot complete " + title, e.getCause());
+                    }
+                }
+                if (System.currentTimeMillis() >= nextProgress) {
+                    if (progressMonitor.isCancelled()) {
+                        cancelled.set(true);
+                    }
+                    progressMonitor.update(done.get());
+                    if (progressListener != null) {
+                        progressListener.run();
+                    }
+                    nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MS;
+                }
+            }
+        } finally {
+            cancelled.set(true);
+            executor.shutdownNow();
+        }
+        progressMonitor.update(done.get());
+        progressMonitor.endTask();
+    }
+
+}
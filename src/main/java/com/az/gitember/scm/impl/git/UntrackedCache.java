@@ -0,0 +1,287 @@
+package com.az.gitember.scm.impl.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Status of untracked directories, which are not in HEAD and index at all. Untracked files, untracked folders
+ * and ignored paths found under such directory are kept together with modification time of each its directory
+ * and hash of ignore rules, which apply to it. While times and rules are the same, the same files are there,
+ * so directory is not listed again. Cache is stored under .git/gitember folder.
+ */
+public class UntrackedCache {
+
+    private final static Logger log = Logger.getLogger(UntrackedCache.class.getName());
+
+    static final String FILE_NAME = "untracked-cache";
+
+    private static final int MAGIC = 0x47455543;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Directory, which was modified so short time before listing, may be modified again
+     * with the same timestamp, so it is not cached, ms.
+     */
+    private static final long RACY_INTERVAL = 2000;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    static class Entry {
+
+        /**
+         * Hash of ignore rules of parent directories, repository and user.
+         */
+        final long ignoreHash;
+
+        /**
+         * Directory itself and its not ignored subdirectories.
+         */
+        final String[] dirs;
+
+        final long[] lastModified;
+
+        /**
+         * Ignore files under directory, they are hashed on each check.
+         */
+        final String[] ignoreFiles;
+
+        final long ignoreFilesHash;
+
+        final String[] untracked;
+
+        final String[] untrackedFolders;
+
+        final String[] ignored;
+
+        Entry(final long ignoreHash,
+              final String[] dirs,
+              final long[] lastModified,
+              final String[] ignoreFiles,
+              final long ignoreFilesHash,
+              final String[] untracked,
+              final String[] untrackedFolders,
+              final String[] ignored) {
+            this.ignoreHash = ignoreHash;
+            this.dirs = dirs;
+            this.lastModified = lastModified;
+            this.ignoreFiles = ignoreFiles;
+            this.ignoreFilesHash = ignoreFilesHash;
+            this.untracked = untracked;
+            this.untrackedFolders = untrackedFolders;
+            this.ignored = ignored;
+        }
+
+        /**
+         * @param workTree   work tree
+         * @param ignoreHash current hash of ignore rules of parent directories, repository and user
+         * @return true if directories and ignore rules were not changed
+         */
+        boolean isValid(final File workTree, final long ignoreHash) {
+            if (this.ignoreHash != ignoreHash) {
+                return false;
+            }
+            for (int i = 0; i < dirs.length; i++) {
+                if (getLastModified(new File(workTree, dirs[i])) != lastModified[i]) {
+                    return false;
+                }
+            }
+            long hash = FNV_OFFSET;
+            for (String ignoreFile : ignoreFiles) {
+                hash = hash(hash, new File(workTree, ignoreFile));
+            }
+            return hash == ignoreFilesHash;
+        }
+
+        /**
+         * @return true if directories were modified long enough before the given time
+         */
+        boolean isStable(final long time) {
+            for (long modified : lastModified) {
+                if (modified > time - RACY_INTERVAL) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final File file;
+
+    private Map<String, Entry> entries;
+
+    private boolean dirty = false;
+
+    public UntrackedCache(final File folder) {
+        this.file = new File(folder, FILE_NAME);
+    }
+
+    /**
+     * @param path untracked directory relative to work tree
+     * @return cached status of directory or null
+     */
+    synchronized Entry get(final String path) {
+        return getEntries().get(path);
+    }
+
+    synchronized void put(final String path, final Entry entry) {
+        getEntries().put(path, entry);
+        dirty = true;
+    }
+
+    /**
+     * Forget directories, which are not untracked any more or were removed.
+     *
+     * @param paths untracked directories of the last status
+     */
+    synchronized void retain(final Collection<String> paths) {
+        if (getEntries().keySet().retainAll(paths)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * @return modification time of file or 0 if it does not exist
+     */
+    static long getLastModified(final File file) {
+        try {
+            return Files.getLastModifiedTime(file.toPath(), LinkOption.NOFOLLOW_LINKS).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Add content of file to FNV-1a hash. Absent file changes hash too, so appearance of ignore file is noticed.
+     */
+    static long hash(long hash, final File file) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (NoSuchFileException e) {
+            bytes = null;
+        } catch (IOException e) {
+            bytes = file.getPath().getBytes(StandardCharsets.UTF_8);
+        }
+        if (bytes == null) {
+            return (hash ^ 0xFF) * FNV_PRIME;
+        }
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return (hash ^ bytes.length) * FNV_PRIME;
+    }
+
+    static long hash(final File... files) {
+        long hash = FNV_OFFSET;
+        for (File f : files) {
+            hash = hash(hash, f);
+        }
+        return hash;
+    }
+
+    private Map<String, Entry> getEntries() {
+        if (entries == null) {
+            entries = load();
+        }
+        return entries;
+    }
+
+    private Map<String, Entry> load() {
+        final Map<String, Entry> rez = new HashMap<>();
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Unsupported format");
+                }
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    final String path = in.readUTF();
+                    final long ignoreHash = in.readLong();
+                    final String[] dirs = readStrings(in);
+                    final long[] lastModified = new long[dirs.length];
+                    for (int j = 0; j < dirs.length; j++) {
+                        lastModified[j] = in.readLong();
+                    }
+                    final String[] ignoreFiles = readStrings(in);
+                    final long ignoreFilesHash = in.readLong();
+                    rez.put(path, new Entry(ignoreHash, dirs, lastModified, ignoreFiles, ignoreFilesHash,
+                            readStrings(in), readStrings(in), readStrings(in)));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Cannot read untracked cache " + file + ", it will be rebuilt", e);
+                rez.clear();
+            }
+        }
+        return rez;
+    }
+
+    private static String[] readStrings(final DataInputStream in) throws IOException {
+        final String[] rez = new String[in.readInt()];
+        for (int i = 0; i < rez.length; i++) {
+            rez[i] = in.readUTF();
+        }
+        return rez;
+    }
+
+    private static void writeStrings(final DataOutputStream out, final String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * Write cache to the file, if it was changed.
+     */
+    public synchronized void store() {
+        if (!dirty) {
+            return;
+        }
+        final Path tmp = new File(file.getParentFile(), FILE_NAME + ".tmp").toPath();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    final Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.ignoreHash);
+                    writeStrings(out, entry.dirs);
+                    for (long modified : entry.lastModified) {
+                        out.writeLong(modified);
+                    }
+                    writeStrings(out, entry.ignoreFiles);
+                    out.writeLong(entry.ignoreFilesHash);
+                    writeStrings(out, entry.untracked);
+                    writeStrings(out, entry.untrackedFolders);
+                    writeStrings(out, entry.ignored);
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot store untracked cache " + file, e);
+        }
+    }
+
+}
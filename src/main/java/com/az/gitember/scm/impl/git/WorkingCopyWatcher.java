@@ -0,0 +1,309 @@
+package com.az.gitember.scm.impl.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.util.FS;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watcher of working copy. Not ignored directories of work tree are registered in watch service,
+ * paths of events are collected and passed to listener together, when no more events come during short interval.
+ * Index, HEAD and ref of current branch are watched too, because they change status of files, which are not touched.
+ * Listener is asked to read status of whole working copy, if events were lost or ignore rules were changed,
+ * not ignored directories are registered again in this case.
+ *
+ * Directories are registered by the watcher thread, so large work tree does not delay the caller.
+ * Watcher is stopped, if directory can not be registered, for example because of limit of watches.
+ */
+public class WorkingCopyWatcher implements Closeable {
+
+    private final static Logger log = Logger.getLogger(WorkingCopyWatcher.class.getName());
+
+    /**
+     * Changes are passed, when no new events came during this interval, ms.
+     */
+    private static final long DEBOUNCE_INTERVAL = 300;
+
+    /**
+     * Changes are passed at least once per this interval, even if events keep coming, ms.
+     */
+    private static final long MAX_DELAY = 2000;
+
+    /**
+     * Status of whole working copy is read faster, than status of so many separate paths.
+     */
+    private static final int MAX_PATHS = 2000;
+
+    public interface Listener {
+
+        /**
+         * Called from watcher thread.
+         *
+         * @param paths        changed paths relative to work tree, path of directory means all files under it
+         * @param indexChanged true if index or HEAD were changed
+         */
+        void changed(Set<String> paths, boolean indexChanged);
+
+        /**
+         * Called from watcher thread, when events were lost or too many paths were changed.
+         */
+        void overflow();
+
+    }
+
+    private final Repository repository;
+
+    private final Path workTree;
+
+    private final Path gitDir;
+
+    private final Listener listener;
+
+    private final Path infoExclude;
+
+    /**
+     * Global excludes file from core.excludesFile or null.
+     */
+    private final Path excludesFile;
+
+    private final Path headLog;
+
+    /**
+     * Loose ref file of current branch or null if HEAD is detached.
+     */
+    private Path branchRef;
+
+    private final WatchService watchService;
+
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+
+    private volatile boolean active = true;
+
+    WorkingCopyWatcher(final Repository repository, final Listener listener) throws IOException {
+        this.repository = repository;
+        this.workTree = repository.getWorkTree().toPath();
+        this.gitDir = repository.getDirectory().toPath();
+        this.listener = listener;
+        this.infoExclude = gitDir.resolve(Constants.INFO_EXCLUDE);
+        this.excludesFile = getExcludesFile(repository);
+        this.headLog = gitDir.resolve(Constants.LOGS).resolve(Constants.HEAD);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        final Thread th = new Thread(this::run, "working copy watcher");
+        th.setDaemon(true);
+        th.start();
+    }
+
+    /**
+     * @return false if watcher was closed or could not watch working copy
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void close() {
+        active = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot close watch service", e);
+        }
+    }
+
+    private void run() {
+        final Set<String> paths = new HashSet<>();
+        boolean indexChanged = false;
+        boolean rescan = false;
+        long firstEvent = 0;
+        try {
+            register(gitDir);
+            registerParent(infoExclude);
+            registerParent(excludesFile);
+            registerParent(headLog);
+            registerBranchRef();
+            registerTree(null);
+            while (active) {
+                final boolean pending = indexChanged || rescan || !paths.isEmpty();
+                final WatchKey key = pending
+                        ? watchService.poll(DEBOUNCE_INTERVAL, TimeUnit.MILLISECONDS)
+                        : watchService.take();
+                if (key != null) {
+                    if (!pending) {
+                        firstEvent = System.currentTimeMillis();
+                    }
+                    final Path dir = keys.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan = true;
+                            continue;
+                        }
+                        final Path child = dir.resolve((Path) event.context());
+                        if (child.equals(infoExclude) || child.equals(excludesFile)) {
+                            rescan = true;
+                        } else if (child.startsWith(gitDir)) {
+                            if (child.equals(gitDir.resolve(Constants.HEAD))) {
+                                // branch may be switched
+                                registerBranchRef();
+                                indexChanged = true;
+                            } else {
+                                indexChanged |= child.equals(gitDir.resolve("index"))
+                                        || child.equals(gitDir.resolve(Constants.PACKED_REFS))
+                                        || child.equals(headLog)
+                                        || child.equals(branchRef);
+                            }
+                        } else if (child.startsWith(workTree)) {
+                            final String path = workTree.relativize(child).toString().replace(File.separatorChar, '/');
+                            if (path.equals(Constants.DOT_GIT) || path.startsWith(Constants.DOT_GIT + "/")) {
+                                continue;
+                            }
+                            paths.add(path);
+                            if (child.getFileName().toString().equals(Constants.GITIGNORE_FILENAME)) {
+                                rescan = true;
+                            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                                    && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                                registerTree(path);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        keys.remove(key);
+                    }
+                }
+                if (key == null || System.currentTimeMillis() - firstEvent >= MAX_DELAY) {
+                    if (rescan) {
+                        // directories may be not ignored any more or were created while events were lost
+                        registerTree(null);
+                    }
+                    if (rescan || paths.size() > MAX_PATHS) {
+                        fireOverflow();
+                    } else if (indexChanged || !paths.isEmpty()) {
+                        fireChanged(new TreeSet<>(paths), indexChanged);
+                    }
+                    paths.clear();
+                    indexChanged = false;
+                    rescan = false;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            active = false;
+        } catch (IOException e) {
+            if (active) {
+                log.log(Level.WARNING, "Cannot watch working copy " + workTree, e);
+                close();
+                fireOverflow();
+            }
+        }
+    }
+
+    /**
+     * Register directory and its not ignored subdirectories.
+     *
+     * @param dir directory relative to work tree or null for the whole work tree
+     */
+    private void registerTree(final String dir) throws IOException {
+        if (dir == null) {
+            register(workTree);
+        }
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(new FileTreeIterator(repository));
+            if (dir != null) {
+                treeWalk.setFilter(PathFilter.create(dir));
+            }
+            while (treeWalk.next()) {
+                if (treeWalk.isSubtree() && !treeWalk.getTree(0, WorkingTreeIterator.class).isEntryIgnored()) {
+                    register(workTree.resolve(treeWalk.getPathString()));
+                    treeWalk.enterSubtree();
+                }
+            }
+        }
+    }
+
+    /**
+     * Register directory of given file, if it exists.
+     */
+    private void registerParent(final Path file) throws IOException {
+        if (file != null && Files.isDirectory(file.getParent())) {
+            register(file.getParent());
+        }
+    }
+
+    /**
+     * Find ref of current branch and register its directory. Directory may be missing, if ref is packed,
+     * change of packed refs is watched in git directory.
+     */
+    private void registerBranchRef() throws IOException {
+        final Ref head = repository.exactRef(Constants.HEAD);
+        branchRef = head != null && head.isSymbolic() ? gitDir.resolve(head.getTarget().getName()) : null;
+        registerParent(branchRef);
+    }
+
+    /**
+     * @return global excludes file, the same way as work tree iterator finds it
+     */
+    private static Path getExcludesFile(final Repository repository) {
+        final String path = repository.getConfig().get(CoreConfig.KEY).getExcludesFile();
+        if (path == null) {
+            return null;
+        }
+        final FS fs = repository.getFS();
+        final File file = path.startsWith("~/") ? fs.resolve(fs.userHome(), path.substring(2)) : fs.resolve(null, path);
+        return file.toPath();
+    }
+
+    private void register(final Path dir) throws IOException {
+        try {
+            keys.put(
+                    dir.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY),
+                    dir);
+        } catch (NoSuchFileException e) {
+            // deleted meanwhile, deletion is reported by parent directory
+        }
+    }
+
+    private void fireChanged(final Set<String> paths, final boolean indexChanged) {
+        try {
+            listener.changed(paths, indexChanged);
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Cannot pass working copy changes", e);
+        }
+    }
+
+    private void fireOverflow() {
+        try {
+            listener.overflow();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Cannot pass working copy overflow", e);
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.az.gitember.service;
 
 import com.az.gitember.GitemberApp;
+import com.az.gitember.HotspotViewController;
 import com.az.gitember.StatViewController;
 import com.az.gitember.misc.*;
 import com.az.gitember.scm.exception.GECannotDeleteCurrentBranchException;
@@ -24,6 +25,7 @@ import org.eclipse.jgit.transport.RefSpec;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -43,12 +45,18 @@ public class GitemberServiceImpl {
 
     private final static Logger log = Logger.getLogger(GitemberServiceImpl.class.getName());
 
+    /**
+     * Amount of files in hotspot report.
+     */
+    private final static int HOTSPOT_COUNT = 100;
+
     private CountDownLatch uiInputLatchToService;
     private GitemberProjectSettings repositoryLoginInfo = null;
 
     private ToolBar progressBar;
     private ProgressBar operationProgressBar;
     private Label operationName;
+    private Button cancelOperationButton;
 
 
     public void setProgressBar(ToolBar progressBar) {
@@ -63,6 +71,10 @@ public class GitemberServiceImpl {
         this.operationName = operationName;
     }
 
+    public void setCancelOperationButton(Button cancelOperationButton) {
+        this.cancelOperationButton = cancelOperationButton;
+    }
+
     /**
      * Merge given branch to head.
      *
@@ -171,7 +183,7 @@ public class GitemberServiceImpl {
                                 new DefaultProgressMonitor((t, d) -> {
                                     updateTitle(t);
                                     updateProgress(d, 1.0);
-                                }
+                                }, this::isCancelled
                                 )
                         )
                 );
@@ -284,7 +296,7 @@ public class GitemberServiceImpl {
                                     new DefaultProgressMonitor((t, d) -> {
                                         updateTitle(t);
                                         updateProgress(d, 1.0);
-                                    }))
+                                    }, this::isCancelled))
                     );
                 }
             };
@@ -376,7 +388,7 @@ public class GitemberServiceImpl {
                                         new DefaultProgressMonitor((t, d) -> {
                                             updateTitle(t);
                                             updateProgress(d, 1.0);
-                                        }))
+                                        }, this::isCancelled))
                         );
                     }
                 };
@@ -409,7 +421,7 @@ public class GitemberServiceImpl {
                                 new DefaultProgressMonitor((t, d) -> {
                                     updateTitle(t);
                                     updateProgress(d, 1.0);
-                                })
+                                }, this::isCancelled)
                         )
                 );
 
@@ -418,7 +430,7 @@ public class GitemberServiceImpl {
                             localBranchName, repositoryLoginInfo, new DefaultProgressMonitor((t, d) -> {
                                 updateTitle(t);
                                 updateProgress(d, 1.0);
-                            }), false
+                            }, this::isCancelled), false
                     );
                     //
                 } catch (Exception e) {
@@ -532,43 +544,58 @@ public class GitemberServiceImpl {
         operationProgressBar.progressProperty().bind(longTask.progressProperty());
         operationName.textProperty().bind(longTask.titleProperty());
         GitemberApp.getMainStage().getScene().setCursor(Cursor.WAIT);
+        // task is interrupted and its progress monitor reports cancellation, operation stops at the next check
+        cancelOperationButton.setOnAction(e -> longTask.cancel(true));
 
         longTask.setOnSucceeded(val -> Platform.runLater(
-                () -> {
-                    RemoteOperationValue rval = longTask.getValue();
-                    GitemberApp.getMainStage().getScene().setCursor(Cursor.DEFAULT);
-                    operationProgressBar.progressProperty().unbind();
-                    operationName.textProperty().unbind();
-                    progressBar.setVisible(false);
-
-
-                    //RemoteOperationValue rval = longTask.getValue();
-                    if (rval == null) {
-                        rval = new RemoteOperationValue(RemoteOperationValue.Result.ERROR, "Error");
-                    }
-                    String info = rval.getValue().toString(); //todo rval value can be not an string.  ????
+                () -> finishLongTask(longTask.getValue(), onOk, onError)
+        ));
+        longTask.setOnCancelled(val -> finishLongTask(
+                new RemoteOperationValue(RemoteOperationValue.Result.CANCEL, "Operation was cancelled"),
+                onOk, onError
+        ));
+        longTask.setOnFailed(val -> {
+            log.log(Level.SEVERE, "Operation failed", longTask.getException());
+            finishLongTask(null, onOk, onError);
+        });
+    }
 
-                    switch (rval.getResult()) {
-                        case OK: {
-                            if (onOk != null) {
-                                onOk.accept(rval);
-                            }
-                            if (rval.getSecondValue() == null) {
-                                GitemberApp.showResult(info, Alert.AlertType.INFORMATION);
-                            }
-                            break;
-                        }
-                        case ERROR: {
-                            if (onError != null) {
-                                onError.accept(rval);
-                            }
-                            GitemberApp.showResult(info, Alert.AlertType.ERROR);
-                            break;
-                        }
-                    }
+    private void finishLongTask(RemoteOperationValue rval,
+                                final Consumer<RemoteOperationValue> onOk,
+                                final Consumer<RemoteOperationValue> onError) {
+        GitemberApp.getMainStage().getScene().setCursor(Cursor.DEFAULT);
+        operationProgressBar.progressProperty().unbind();
+        operationName.textProperty().unbind();
+        progressBar.setVisible(false);
+        cancelOperationButton.setOnAction(null);
+
+        if (rval == null) {
+            rval = new RemoteOperationValue(RemoteOperationValue.Result.ERROR, "Error");
+        }
+        String info = rval.getValue().toString(); //todo rval value can be not an string.  ????
 
+        switch (rval.getResult()) {
+            case OK: {
+                if (onOk != null) {
+                    onOk.accept(rval);
                 }
-        ));
+                if (rval.getSecondValue() == null) {
+                    GitemberApp.showResult(info, Alert.AlertType.INFORMATION);
+                }
+                break;
+            }
+            case ERROR: {
+                if (onError != null) {
+                    onError.accept(rval);
+                }
+                GitemberApp.showResult(info, Alert.AlertType.ERROR);
+                break;
+            }
+            case CANCEL: {
+                GitemberApp.showResult(info, Alert.AlertType.INFORMATION);
+                break;
+            }
+        }
     }
 
     public boolean deleteStash(ScmRevisionInformation ri, int index) {
@@ -602,7 +629,7 @@ public class GitemberServiceImpl {
                                 new DefaultProgressMonitor((t, d) -> {
                                     updateTitle(t);
                                     updateProgress(d, 1.0);
-                                }))
+                                }, this::isCancelled))
                 );
             }
         };
@@ -621,7 +648,7 @@ public class GitemberServiceImpl {
                                 new DefaultProgressMonitor((t, d) -> {
                                     updateTitle(t);
                                     updateProgress(d, 1.0);
-                                }),
+                                }, this::isCancelled),
                                 true
                         )
                 );
@@ -705,7 +732,7 @@ public class GitemberServiceImpl {
                                     new DefaultProgressMonitor((t, d) -> {
                                         updateTitle(t);
                                         updateProgress(d, 1.0);
-                                    })
+                                    }, this::isCancelled)
                             )
                     );
                 }
@@ -764,6 +791,97 @@ public class GitemberServiceImpl {
         }
     }
 
+    /**
+     * Find files, which are changed most often.
+     */
+    public void createHotspotReport() {
+
+        Task<RemoteOperationValue> longTask = new Task<RemoteOperationValue>() {
+            @Override
+            protected RemoteOperationValue call() {
+                try {
+                    return new RemoteOperationValue(
+                            RemoteOperationValue.Result.OK,
+                            "Ok",
+                            GitemberApp.getRepositoryService().getHotspots(
+                                    HOTSPOT_COUNT,
+                                    new DefaultProgressMonitor((t, d) -> {
+                                        updateTitle(t);
+                                        updateProgress(d, 1.0);
+                                    }, this::isCancelled
+                                    )
+                            )
+                    );
+                } catch (Exception e) {
+                    log.log(Level.WARNING, "Cannot find hotspots", e);
+                    return new RemoteOperationValue(RemoteOperationValue.Result.ERROR, "Cannot find hotspots");
+                }
+            }
+
+        };
+
+        prepareLongTask(longTask,
+                remoteOperationValue -> {
+                    try {
+                        @SuppressWarnings("unchecked")
+                        final List<ScmHotspot> hotspots = (List<ScmHotspot>) remoteOperationValue.getSecondValue();
+                        HotspotViewController.openHotspotWindow(hotspots);
+                    } catch (Exception e) {
+                        String msg = "Cannot open hotspots";
+                        log.log(Level.WARNING, msg, e);
+                        GitemberApp.showResult(msg, Alert.AlertType.ERROR);
+                    }
+                },
+                null);
+        final Thread th = new Thread(longTask);
+        th.setDaemon(true);
+        th.start();
+    }
+
+    /**
+     * Show commits and changed files by week, without blame of files.
+     */
+    public void createActivityReport() {
+
+        Task<RemoteOperationValue> longTask = new Task<RemoteOperationValue>() {
+            @Override
+            protected RemoteOperationValue call() {
+                try {
+                    return new RemoteOperationValue(
+                            RemoteOperationValue.Result.OK,
+                            "Ok",
+                            GitemberApp.getRepositoryService().getActivity(
+                                    new DefaultProgressMonitor((t, d) -> {
+                                        updateTitle(t);
+                                        updateProgress(d, 1.0);
+                                    }, this::isCancelled
+                                    )
+                            )
+                    );
+                } catch (Exception e) {
+                    log.log(Level.WARNING, "Cannot count activity", e);
+                    return new RemoteOperationValue(RemoteOperationValue.Result.ERROR, "Cannot count activity");
+                }
+            }
+
+        };
+
+        prepareLongTask(longTask,
+                remoteOperationValue -> {
+                    try {
+                        StatViewController.openActivityWindow((ScmActivity) remoteOperationValue.getSecondValue());
+                    } catch (Exception e) {
+                        String msg = "Cannot open activity";
+                        log.log(Level.WARNING, msg, e);
+                        GitemberApp.showResult(msg, Alert.AlertType.ERROR);
+                    }
+                },
+                null);
+        final Thread th = new Thread(longTask);
+        th.setDaemon(true);
+        th.start();
+    }
+
     /**
      * Create stat report.
      */
@@ -772,6 +890,7 @@ public class GitemberServiceImpl {
         try {
 
             final Set<String> files = GitemberApp.getRepositoryService().getAllFiles();
+            final StatViewController statView = StatViewController.openStatWindow();
 
             Task<RemoteOperationValue> longTask = new Task<RemoteOperationValue>() {
                 @Override
@@ -785,10 +904,14 @@ public class GitemberServiceImpl {
                                             new DefaultProgressMonitor((t, d) -> {
                                                 updateTitle(t);
                                                 updateProgress(d, 1.0);
-                                            }
-                                            )
+                                            }, this::isCancelled
+                                            ),
+                                            statView::update
                                     );
                                 } catch (Exception e) {
+                                    if (isCancelled()) {
+                                        return new RemoteOperationValue(RemoteOperationValue.Result.CANCEL, "Statistic report was cancelled");
+                                    }
                                     e.printStackTrace();
                                 }
                                 return null;
@@ -801,11 +924,7 @@ public class GitemberServiceImpl {
             prepareLongTask(longTask,
                     remoteOperationValue -> {
                         try {
-                            ScmStat scmStat = (ScmStat) remoteOperationValue.getSecondValue();
-                            StatViewController.openStatWindow(
-                                    scmStat.getTotal(),
-                                    scmStat.getLogMap()
-                            );
+                            statView.update((ScmStat) remoteOperationValue.getSecondValue());
 
                         } catch (Exception e) {
                             String msg = "Cannot open statistic report";
@@ -849,7 +968,7 @@ public class GitemberServiceImpl {
                                     new DefaultProgressMonitor((t, d) -> {
                                         updateTitle(t);
                                         updateProgress(d, 1.0);
-                                    }
+                                    }, this::isCancelled
                                     )
                             )
                     );
@@ -15,7 +15,7 @@ public class RemoteOperationValueTask   extends Task<RemoteOperationValue>  {
     private final ProgressMonitor progressMonitor = new DefaultProgressMonitor((t, d) -> {
         updateTitle(t);
         updateProgress(d, 1.0);
-    });
+    }, this::isCancelled);
 
     public RemoteOperationValueTask(final GitemberServiceImpl service, Supplier<RemoteOperationValue> supplier) {
         this.service = service;
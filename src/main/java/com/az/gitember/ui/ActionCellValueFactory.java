@@ -11,6 +11,7 @@ import org.kordamp.ikonli.fontawesome.FontAwesome;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -57,8 +58,7 @@ public class ActionCellValueFactory implements ObservableValue<FontIcon> {
             if (cellDataFeaturesScmRev == null) {
                 return icons.getOrDefault(cellDataFeatures.getValue().getFirst(), fontIconUnknown).call();
             } else {
-                return icons.getOrDefault(cellDataFeaturesScmRev.getValue().getAffectedItems().get(0).getFirst(),
-                        fontIconUnknown).call();
+                return getIcon(cellDataFeaturesScmRev.getValue().getAffectedItems());
 
             }
         } catch (Exception e) {
@@ -67,6 +67,22 @@ public class ActionCellValueFactory implements ObservableValue<FontIcon> {
         return null;
     }
 
+    /**
+     * @param affectedItems changed items of revision, may be empty, for example for merge without changes
+     * @return icon of the first item action
+     */
+    public static FontIcon getIcon(List<ScmItem> affectedItems) {
+        try {
+            if (affectedItems == null || affectedItems.isEmpty()) {
+                return fontIconUnknown.call();
+            }
+            return icons.getOrDefault(affectedItems.get(0).getFirst(), fontIconUnknown).call();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     @Override
     public void addListener(InvalidationListener listener) {
 
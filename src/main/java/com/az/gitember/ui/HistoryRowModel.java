@@ -0,0 +1,219 @@
+package com.az.gitember.ui;
+
+import com.az.gitember.scm.impl.git.CommitHistory;
+import javafx.application.Platform;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Display strings of history table. Rows are rendered off FX thread by chunks into columns of ready
+ * strings, so cell update only picks string by row index. Committer is read together with message.
+ * Date is formatted once per minute, only seconds are appended per row.
+ *
+ * Chunks are kept in fixed slots by chunk index, so lookup does not allocate. Missing chunk is rendered in background together with its neighbours,
+ * meanwhile row is shown empty and listener is notified, when chunks are ready.
+ */
+public class HistoryRowModel implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private static final int MAX_CHUNKS = 64;
+
+    /**
+     * Requested chunk is not rendered, if table was scrolled further than this amount of chunks.
+     */
+    private static final int RENDER_DISTANCE = 2;
+
+    private static final int MAX_MINUTES = 4096;
+
+    private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+
+    private static final String[] SECONDS = new String[60];
+
+    static {
+        for (int i = 0; i < SECONDS.length; i++) {
+            SECONDS[i] = String.format(":%02d", i);
+        }
+    }
+
+    private static class Chunk {
+
+        final int idx;
+
+        final String[] dates;
+
+        final String[] messages;
+
+        final String[] committers;
+
+        Chunk(final int idx, final String[] dates, final String[] messages, final String[] committers) {
+            this.idx = idx;
+            this.dates = dates;
+            this.messages = messages;
+            this.committers = committers;
+        }
+    }
+
+    private final CommitHistory commitHistory;
+
+    private final Runnable onRendered;
+
+    private final Chunk[] chunks = new Chunk[MAX_CHUNKS];
+
+    /**
+     * Formatted minutes, guarded by this model.
+     */
+    private final Map<Integer, String> minutes = new LinkedHashMap<Integer, String>(MAX_MINUTES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > MAX_MINUTES;
+        }
+    };
+
+    private final Set<Integer> pending = new HashSet<>();
+
+    private final AtomicBoolean notifyScheduled = new AtomicBoolean();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        final Thread th = new Thread(r, "history-rows");
+        th.setDaemon(true);
+        return th;
+    });
+
+    private int lastRequested = 0;
+
+    /**
+     * @param commitHistory history to show
+     * @param onRendered    called on FX thread, when chunks requested by getters are rendered
+     */
+    public HistoryRowModel(final CommitHistory commitHistory, final Runnable onRendered) {
+        this.commitHistory = commitHistory;
+        this.onRendered = onRendered;
+    }
+
+    /**
+     * @param row row of history
+     * @return committer name or empty string, if row is not rendered yet
+     */
+    public String getCommitter(final int row) {
+        final Chunk chunk = getChunk(row);
+        return chunk == null ? "" : chunk.committers[row % CHUNK_SIZE];
+    }
+
+    /**
+     * @param row row of history
+     * @return formatted commit date or empty string, if row is not rendered yet
+     */
+    public String getDate(final int row) {
+        final Chunk chunk = getChunk(row);
+        return chunk == null ? "" : chunk.dates[row % CHUNK_SIZE];
+    }
+
+    /**
+     * @param row row of history
+     * @return first line of commit message or empty string, if row is not rendered yet
+     */
+    public String getMessage(final int row) {
+        final Chunk chunk = getChunk(row);
+        return chunk == null ? "" : chunk.messages[row % CHUNK_SIZE];
+    }
+
+    /**
+     * Render rows in the caller thread, so they are shown without delay.
+     *
+     * @param fromRow first row
+     * @param toRow   row after the last one
+     */
+    public void render(final int fromRow, final int toRow) {
+        for (int idx = fromRow / CHUNK_SIZE; idx * CHUNK_SIZE < toRow; idx++) {
+            renderChunk(idx);
+        }
+    }
+
+    private synchronized Chunk getChunk(final int row) {
+        final int idx = row / CHUNK_SIZE;
+        final Chunk chunk = chunks[idx % MAX_CHUNKS];
+        if (chunk != null && chunk.idx == idx && chunk.dates.length > row % CHUNK_SIZE) {
+            return chunk;
+        }
+        lastRequested = idx;
+        request(idx);
+        request(idx + 1);
+        if (idx > 0) {
+            request(idx - 1);
+        }
+        return null;
+    }
+
+    private void request(final int idx) {
+        final Chunk chunk = chunks[idx % MAX_CHUNKS];
+        if ((chunk == null || chunk.idx != idx || chunk.dates.length < CHUNK_SIZE) && !executor.isShutdown() && pending.add(idx)) {
+            executor.execute(() -> {
+                synchronized (this) {
+                    if (Math.abs(idx - lastRequested) > RENDER_DISTANCE) {
+                        pending.remove(idx);
+                        return;
+                    }
+                }
+                if (renderChunk(idx) && notifyScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(() -> {
+                        notifyScheduled.set(false);
+                        onRendered.run();
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true if at least one row was rendered
+     */
+    private boolean renderChunk(final int idx) {
+        final int from = idx * CHUNK_SIZE;
+        final int to = Math.min(from + CHUNK_SIZE, commitHistory.size());
+        Chunk chunk = null;
+        if (from < to) {
+            final String[] dates = new String[to - from];
+            for (int i = 0; i < dates.length; i++) {
+                dates[i] = formatTime(commitHistory.getCommitTime(from + i));
+            }
+            final String[] messages = new String[to - from];
+            final String[] committers = new String[to - from];
+            commitHistory.readRows(from, to, messages, committers);
+            chunk = new Chunk(idx, dates, messages, committers);
+        }
+        synchronized (this) {
+            if (chunk != null) {
+                chunks[idx % MAX_CHUNKS] = chunk;
+            }
+            pending.remove(idx);
+        }
+        return chunk != null;
+    }
+
+    private synchronized String formatTime(final int time) {
+        final int minute = Math.floorDiv(time, 60);
+        String rez = minutes.get(minute);
+        if (rez == null) {
+            rez = MINUTE_FORMAT.format(Instant.ofEpochSecond(60L * minute));
+            minutes.put(minute, rez);
+        }
+        return rez + SECONDS[Math.floorMod(time, 60)];
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.az.gitember.ui;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * Lanes of one history row, prepared once and painted on each cell update.
+ * Each primitive takes {@link #STRIDE} ints: type, color, x1, y1, x2, y2, width.
+ */
+public class LaneGeometry {
+
+    static final int LINE = 0;
+    static final int COMMIT_DOT = 1;
+
+    static final int STRIDE = 7;
+
+    private final int[] data;
+
+    private final int width;
+
+    LaneGeometry(final int[] data, final int size) {
+        this.data = Arrays.copyOf(data, size);
+        int maxX = 0;
+        for (int i = 0; i < size; i += STRIDE) {
+            maxX = Math.max(maxX, data[i] == LINE
+                    ? Math.max(data[i + 2], data[i + 4])
+                    : data[i + 2] + data[i + 4] + 1);
+        }
+        this.width = maxX;
+    }
+
+    /**
+     * @return right most coordinate of lanes
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    public void paint(final GraphicsContext gc, final Color[] colors) {
+        for (int i = 0; i < data.length; i += STRIDE) {
+            final Color color = colors[data[i + 1]];
+            final int x1 = data[i + 2];
+            final int y1 = data[i + 3];
+            final int x2 = data[i + 4];
+            final int y2 = data[i + 5];
+            switch (data[i]) {
+                case LINE:
+                    paintLine(gc, color, x1, y1, x2, y2, data[i + 6]);
+                    break;
+                default:
+                    gc.setFill(color);
+                    gc.fillOval(x1, y1, x2, y2);
+                    gc.strokeOval(x1, y1, x2 + 1, y2 + 1);
+            }
+        }
+    }
+
+    private void paintLine(final GraphicsContext gc, final Color color,
+                           final int x1, final int y1, final int x2, final int y2, final int width) {
+        gc.setStroke(color);
+        gc.setLineWidth(width * 2);
+
+        if (x1 == x2 || y1 == y2) {
+            gc.strokeLine(x1, y1, x2, y2);
+            return;
+        }
+
+        gc.beginPath();
+        gc.moveTo(x1, y1);
+        if (x1 > x2) {
+            if (y1 > y2) {
+                gc.bezierCurveTo(x1 - 15, y1, x2, y2, x2, y2);
+            } else {
+                gc.bezierCurveTo(x1 - 10, y1, x2, y2, x2, y2);
+            }
+        } else if (x1 < x2) {
+            if (y1 < y2) {
+                gc.bezierCurveTo(x1 + 8, y1, x2, y2, x2, y2);
+            } else {
+                gc.bezierCurveTo(x1 + 10, y1, x2, y2, x2, y2);
+            }
+        }
+        gc.stroke();
+        gc.closePath();
+    }
+}
@@ -1,108 +1,121 @@
 package com.az.gitember.ui;
 
-import javafx.scene.canvas.GraphicsContext;
+import com.az.gitember.scm.impl.git.HistoryGraph;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
-import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.revplot.AbstractPlotRenderer;
-import org.eclipse.jgit.revplot.PlotCommit;
-import org.eclipse.jgit.revplot.PlotLane;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Random;
+import java.util.BitSet;
 
 /**
+ * Records lanes of history row into {@link LaneGeometry}, so they can be painted many times
+ * without repeating of lane calculation. Sizes follow JGit plot renderer.
+ *
  * Created by Igor_Azarny on 03 - Dec - 2016
  */
-public class PlotCommitRenderer extends AbstractPlotRenderer {
+public class PlotCommitRenderer {
 
-    private static final Color[] colors = new Color[]{
+    public static final Color[] colors = new Color[]{
             Color.rgb(255, 0, 0), Color.rgb(0, 255, 0), Color.rgb(229, 229, 0), Color.rgb(177, 178, 255), Color.rgb(255, 0, 255), Color.rgb(0, 255, 255),
             Color.rgb(206, 0, 0), Color.rgb(0, 187, 0), Color.rgb(0, 187, 187), Color.rgb(133, 133, 255), Color.rgb(217, 0, 190), Color.rgb(0, 197, 197),
             Color.rgb(159, 0, 0), Color.rgb(0, 159, 0), Color.rgb(136, 136, 0), Color.rgb(71, 71, 255), Color.rgb(173, 0, 151), Color.rgb(0, 155, 155),
             Color.rgb(99, 0, 0), Color.rgb(0, 99, 0), Color.rgb(83, 83, 0), Color.rgb(0, 0, 255), Color.rgb(129, 0, 113), Color.rgb(0, 114, 114),
     };
 
-    private HashMap<PlotLane, Color> plotLaneColorHashMap = new HashMap<>();
-
-    private GraphicsContext graphicsContext;
-
-    private PlotCommit plotCommit;
-
-    @Override
-    protected int drawLabel(int x, int y, Ref ref) {
-        return 0;
-    }
-
-    @Override
-    protected Object laneColor(PlotLane myLane) {
-        if (plotLaneColorHashMap.get(myLane) == null) {
-            plotLaneColorHashMap.put(
-                    myLane,
-                    colors[ (1 + plotLaneColorHashMap.size()) % colors.length   ]
-                    );
+    private static final int LANE_WIDTH = 14;
+
+    private static final int LINE_WIDTH = 2;
+
+    private static final int LEFT_PAD = 2;
+
+    private final BitSet passing = new BitSet();
+
+    private int[] data = new int[LaneGeometry.STRIDE * 16];
+
+    private int size;
+
+    /**
+     * Calculate lanes of given row. Must be called under lock of history, which owns graph.
+     *
+     * @param graph  laid out history
+     * @param row    row to layout
+     * @param height row height
+     * @return lanes to paint
+     */
+    public LaneGeometry layout(final HistoryGraph graph, final int row, final int height) {
+        size = 0;
+        passing.clear();
+        final int dotSize = computeDotSize(height);
+        final int lane = graph.getLane(row);
+        final int x = laneCenter(lane);
+        final int color = laneColor(lane);
+        final int dotX = x - dotSize / 2 - 1;
+        final int dotY = (height - dotSize) / 2;
+        boolean toParent = false;
+        boolean fromChild = false;
+        for (int link : graph.getLinks(row)) {
+            final int linkLane = graph.getLinkLane(link);
+            final int cx = laneCenter(linkLane);
+            final int linkColor = laneColor(linkLane);
+            if (graph.isLinkFrom(row, link)) {
+                if (linkLane == lane) {
+                    toParent = true;
+                } else if (Math.abs(x - cx) > LANE_WIDTH) {
+                    final int ix = x < cx ? cx - LANE_WIDTH / 2 : cx + LANE_WIDTH / 2;
+                    add(LaneGeometry.LINE, linkColor, x, height / 2, ix, height / 2, LINE_WIDTH);
+                    add(LaneGeometry.LINE, linkColor, ix, height / 2, cx, height, LINE_WIDTH);
+                } else {
+                    add(LaneGeometry.LINE, linkColor, x, height / 2, cx, height, LINE_WIDTH);
+                }
+            } else if (graph.isLinkTo(row, link)) {
+                fromChild = true;
+            } else if (!passing.get(linkLane)) {
+                passing.set(linkLane);
+                add(LaneGeometry.LINE, linkColor, cx, 0, cx, height, LINE_WIDTH);
+            }
         }
-        return plotLaneColorHashMap.get(myLane);
-    }
-
-    @Override
-    protected void drawLine(Object o, int x1, int y1, int x2, int y2, int width) {
-
-        graphicsContext.setStroke((Color) o);
-
-        graphicsContext.setLineWidth(width * 2);
-
-        if (x1 == x2 || y1 == y2) {
-            graphicsContext.strokeLine(x1, y1, x2, y2);
-            return;
+        if (toParent) {
+            add(LaneGeometry.LINE, color, x, height, x, (height + dotSize) / 2, LINE_WIDTH);
         }
-
-
-        graphicsContext.beginPath();
-        graphicsContext.moveTo(x1, y1);
-        if (x1 > x2) {
-            if (y1 > y2) {
-                graphicsContext.bezierCurveTo(x1 - 15, y1, x2, y2, x2, y2);
-            } else {
-                graphicsContext.bezierCurveTo(x1 - 10, y1, x2, y2, x2, y2);
-            }
-        } else if (x1 < x2) {
-            if (y1 < y2) {
-                graphicsContext.bezierCurveTo(x1 + 8, y1, x2, y2, x2, y2);
-            } else {
-                graphicsContext.bezierCurveTo(x1 + 10, y1, x2, y2, x2, y2);
-            }
+        if (fromChild) {
+            add(LaneGeometry.LINE, color, x, 0, x, dotY, LINE_WIDTH);
         }
-        graphicsContext.stroke();
-        graphicsContext.closePath();
-
+        add(LaneGeometry.COMMIT_DOT, color, dotX, dotY, dotSize, dotSize, 0);
+        return new LaneGeometry(data, size);
     }
 
-    @Override
-    protected void drawCommitDot(int x, int y, int w, int h) {
-        graphicsContext.setFill((Paint) laneColor(this.plotCommit.getLane()));
-        graphicsContext.fillOval(x, y, w, h);
-        graphicsContext.strokeOval(x, y, w + 1, h + 1);
+    /**
+     * @param maxLane the right most lane
+     * @return width of lanes column
+     */
+    public static int getWidth(final int maxLane) {
+        return laneCenter(maxLane) + LANE_WIDTH;
     }
 
-    @Override
-    protected void drawBoundaryDot(int x, int y, int w, int h) {
-        graphicsContext.setFill(Color.LIGHTGRAY);
-        graphicsContext.fillOval(x, y, w, h);
-        graphicsContext.strokeOval(x, y, w + 1, h + 1);
+    private static int laneCenter(final int lane) {
+        return LEFT_PAD + LANE_WIDTH * lane + LANE_WIDTH / 2;
     }
 
-    @Override
-    protected void drawText(String msg, int x, int y) {
-
+    private static int laneColor(final int lane) {
+        return (1 + lane) % colors.length;
     }
 
-    public void render(GraphicsContext graphicsContext, PlotCommit plotCommit, int height) {
-        this.graphicsContext = graphicsContext;
-        this.plotCommit = plotCommit;
-        this.paintCommit(plotCommit, height);
+    private static int computeDotSize(final int height) {
+        int d = (int) (Math.min(height, LANE_WIDTH) * 0.50f);
+        d += (d & 1);
+        return d;
     }
 
+    private void add(int type, int color, int x1, int y1, int x2, int y2, int width) {
+        if (size + LaneGeometry.STRIDE > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = type;
+        data[size++] = color;
+        data[size++] = x1;
+        data[size++] = y1;
+        data[size++] = x2;
+        data[size++] = y2;
+        data[size++] = width;
+    }
 
 }
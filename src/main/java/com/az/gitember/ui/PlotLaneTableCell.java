@@ -0,0 +1,51 @@
+package com.az.gitember.ui;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.TableCell;
+
+import java.util.function.IntFunction;
+
+/**
+ * Lane cell, which owns single canvas and repaints it, when cell is reused for other row.
+ * Lanes are taken by row index, so column does not need cell value factory.
+ */
+public class PlotLaneTableCell<S> extends TableCell<S, Object> {
+
+    private final Canvas canvas;
+
+    private final IntFunction<LaneGeometry> geometryProvider;
+
+    /**
+     * @param geometryProvider lanes by row index
+     * @param height           row height
+     */
+    public PlotLaneTableCell(final IntFunction<LaneGeometry> geometryProvider,
+                             final int height) {
+        this.geometryProvider = geometryProvider;
+        this.canvas = new Canvas(0, height);
+        setText(null);
+    }
+
+    @Override
+    protected void updateItem(Object item, boolean empty) {
+        super.updateItem(item, empty);
+        paint();
+    }
+
+    private void paint() {
+        final LaneGeometry geometry = isEmpty() || getIndex() < 0 ? null : geometryProvider.apply(getIndex());
+        if (geometry == null) {
+            setGraphic(null);
+            return;
+        }
+        if (canvas.getWidth() < geometry.getWidth()) {
+            canvas.setWidth(geometry.getWidth());
+        }
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        geometry.paint(gc, PlotCommitRenderer.colors);
+        setGraphic(canvas);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.az.gitember.ui;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * Items of table, which takes row data from model by index. Item is the row index itself,
+ * so list keeps nothing but size and boxed indexes of rows, which were asked once.
+ */
+public class RowIndexList extends ObservableListBase<Integer> {
+
+    private int size = 0;
+
+    private Integer[] boxes = new Integer[0];
+
+    @Override
+    public Integer get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        Integer rez = boxes[index];
+        if (rez == null) {
+            rez = boxes[index] = index;
+        }
+        return rez;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Change amount of rows. Listeners are notified about added or removed rows at the end.
+     *
+     * @param newSize new amount of rows
+     */
+    public void setSize(final int newSize) {
+        if (newSize == size) {
+            return;
+        }
+        final int oldSize = size;
+        if (newSize > boxes.length) {
+            boxes = Arrays.copyOf(boxes, Math.max(newSize, boxes.length * 2));
+        }
+        beginChange();
+        if (newSize > oldSize) {
+            size = newSize;
+            nextAdd(oldSize, newSize);
+        } else {
+            size = newSize;
+            nextRemove(newSize, new AbstractList<Integer>() {
+                @Override
+                public Integer get(int index) {
+                    return newSize + index;
+                }
+
+                @Override
+                public int size() {
+                    return oldSize - newSize;
+                }
+            });
+        }
+        endChange();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.az.gitember.ui;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.WeakInvalidationListener;
+import javafx.scene.control.TableCell;
+
+import java.util.function.IntFunction;
+
+/**
+ * Text cell, which takes ready string by row index, so column does not need cell value factory
+ * and update of cell does not allocate.
+ */
+public class RowTextTableCell<S, T> extends TableCell<S, T> {
+
+    private final IntFunction<String> textProvider;
+
+    private final InvalidationListener changedListener = o -> updateText();
+
+    /**
+     * @param textProvider text by row index
+     * @param changed      cell text is taken again, when it is invalidated, cell is referenced weakly
+     */
+    public RowTextTableCell(final IntFunction<String> textProvider,
+                            final Observable changed) {
+        this.textProvider = textProvider;
+        changed.addListener(new WeakInvalidationListener(changedListener));
+    }
+
+    @Override
+    protected void updateItem(T item, boolean empty) {
+        super.updateItem(item, empty);
+        updateText();
+    }
+
+    private void updateText() {
+        setText(isEmpty() || getIndex() < 0 ? null : textProvider.apply(getIndex()));
+    }
+
+}
@@ -1,6 +1,6 @@
 package com.az.gitember.ui;
 
-import com.az.gitember.misc.ScmItemStatus;
+import com.az.gitember.misc.ScmItemStatusMask;
 import javafx.beans.InvalidationListener;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -8,7 +8,6 @@ import org.kordamp.ikonli.fontawesome.FontAwesome;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -17,23 +16,36 @@ import java.util.concurrent.Callable;
  */
 public class StatusCellValueFactory implements ObservableValue<FontIcon> {
 
-    static Map<String, Callable<FontIcon>> icons = new HashMap<>();
+    static Map<Integer, Callable<FontIcon>> icons = new HashMap<>();
 
     static {
-        icons.put(ScmItemStatus.REMOVED, () -> new FontIcon(FontAwesome.MINUS_SQUARE_O));
-        icons.put(ScmItemStatus.UNTRACKED, () -> new FontIcon(FontAwesome.QUESTION));
-        icons.put(ScmItemStatus.MISSED, () -> new FontIcon(FontAwesome.MINUS_SQUARE_O));
-        icons.put(ScmItemStatus.MODIFIED, () -> new FontIcon(FontAwesome.EDIT));
-        icons.put(ScmItemStatus.ADDED, () -> new FontIcon(FontAwesome.PLUS_SQUARE_O));
-        icons.put(ScmItemStatus.CONFLICT, () -> new FontIcon(FontAwesome.EXCHANGE));
-        icons.put(ScmItemStatus.UNCOMMITED, () -> new FontIcon(FontAwesome.CHECK_SQUARE_O));
+        icons.put(ScmItemStatusMask.REMOVED, () -> new FontIcon(FontAwesome.MINUS_SQUARE_O));
+        icons.put(ScmItemStatusMask.UNTRACKED, () -> new FontIcon(FontAwesome.QUESTION));
+        icons.put(ScmItemStatusMask.MISSED, () -> new FontIcon(FontAwesome.MINUS_SQUARE_O));
+        icons.put(ScmItemStatusMask.MODIFIED, () -> new FontIcon(FontAwesome.EDIT));
+        icons.put(ScmItemStatusMask.ADDED, () -> new FontIcon(FontAwesome.PLUS_SQUARE_O));
+        icons.put(ScmItemStatusMask.CONFLICT, () -> new FontIcon(FontAwesome.EXCHANGE));
+        icons.put(ScmItemStatusMask.UNCOMMITED, () -> new FontIcon(FontAwesome.CHECK_SQUARE_O));
     }
 
+    /**
+     * Statuses, which have own icon. Uncommitted icon is shown only if none of them is set.
+     */
+    private static final int ICON_STATUSES = ScmItemStatusMask.MODIFIED
+            | ScmItemStatusMask.REMOVED
+            | ScmItemStatusMask.MISSED
+            | ScmItemStatusMask.ADDED
+            | ScmItemStatusMask.CONFLICT
+            | ScmItemStatusMask.UNTRACKED;
+
     private static Callable<FontIcon> fontIconUnknown = () -> new FontIcon(FontAwesome.QUESTION);
-    private final List<String> statuses;
+    private final int statuses;
 
 
-    public StatusCellValueFactory(List<String> statuses) {
+    /**
+     * @param statuses packed statuses, see {@link ScmItemStatusMask}
+     */
+    public StatusCellValueFactory(int statuses) {
         this.statuses = statuses;
     }
 
@@ -49,15 +61,11 @@ public class StatusCellValueFactory implements ObservableValue<FontIcon> {
 
     @Override
     public FontIcon getValue() {
-        String st = statuses.stream().filter(s -> s.equals(ScmItemStatus.MODIFIED)
-                || s.equals(ScmItemStatus.REMOVED)
-                || s.equals(ScmItemStatus.MISSED)
-                || s.equals(ScmItemStatus.ADDED)
-                || s.equals(ScmItemStatus.CONFLICT)
-                || s.equals(ScmItemStatus.UNTRACKED)
-        ).findFirst().orElse(
-                statuses.stream().filter(s -> s.equals(ScmItemStatus.UNCOMMITED)).findFirst().orElse(null)
-        );
+        int st = statuses & ICON_STATUSES;
+        if (st == 0) {
+            st = statuses & ScmItemStatusMask.UNCOMMITED;
+        }
+        st = Integer.lowestOneBit(st);
 
 
 